@@ -0,0 +1,77 @@
+package com.github.ducoral.formula;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class Bindings implements Scope {
+
+    private final Linkage linkage;
+
+    private final Coercions coercions;
+
+    final Object[] values;
+
+    Bindings(Linkage linkage, Coercions coercions) {
+        this.linkage = linkage;
+        this.coercions = coercions;
+        this.values = new Object[linkage.variables().size()];
+    }
+
+    public List<String> variables() {
+        return linkage.variables();
+    }
+
+    public int indexOf(String name) {
+        return linkage.variableIndex(name);
+    }
+
+    public Bindings set(int index, Object value) {
+        values[index] = value;
+        return this;
+    }
+
+    public Bindings set(String name, Object value) {
+        var index = indexOf(name);
+        if (index == Site.NO_VARIABLE)
+            throw new IllegalArgumentException("variable not found: " + name);
+        return set(index, value);
+    }
+
+    public Object get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Object get(String name) {
+        var index = indexOf(name);
+        return index == Site.NO_VARIABLE ? null : values[index];
+    }
+
+    @Override
+    public boolean hasLong(String name) {
+        var index = indexOf(name);
+        return index != Site.NO_VARIABLE && values[index] instanceof Long;
+    }
+
+    @Override
+    public long getLong(String name) {
+        var index = indexOf(name);
+        return index != Site.NO_VARIABLE && values[index] instanceof Long value
+                ? value
+                : coercions.toLong(get(name));
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return indexOf(name) != Site.NO_VARIABLE;
+    }
+
+    public Bindings clear() {
+        Arrays.fill(values, null);
+        return this;
+    }
+
+    boolean isBoundTo(Linkage linkage) {
+        return this.linkage == linkage;
+    }
+}
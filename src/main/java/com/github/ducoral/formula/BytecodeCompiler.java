@@ -0,0 +1,392 @@
+package com.github.ducoral.formula;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.ducoral.formula.ClassFileWriter.ACC_FINAL;
+import static com.github.ducoral.formula.ClassFileWriter.ACC_PRIVATE;
+import static com.github.ducoral.formula.ClassFileWriter.ACC_PUBLIC;
+import static com.github.ducoral.formula.Expression.BinaryOperation;
+import static com.github.ducoral.formula.Expression.Empty;
+import static com.github.ducoral.formula.Expression.FunctionCall;
+import static com.github.ducoral.formula.Expression.Identifier;
+import static com.github.ducoral.formula.Expression.NumberLiteral;
+import static com.github.ducoral.formula.Expression.StringLiteral;
+import static com.github.ducoral.formula.Expression.UnaryOperation;
+import static com.github.ducoral.formula.Expression.Visitor;
+import static com.github.ducoral.formula.TypeSpecialization.BinaryLongAction;
+import static com.github.ducoral.formula.TypeSpecialization.LongInstruction;
+import static com.github.ducoral.formula.TypeSpecialization.UnaryLongAction;
+
+class BytecodeCompiler implements Visitor {
+
+    private static final String PACKAGE = "com/github/ducoral/formula/";
+
+    private static final String CLASS_NAME = PACKAGE + "FormulaCode";
+
+    private static final String COMPILED_CODE = PACKAGE + "CompiledCode";
+
+    private static final String FRAME = PACKAGE + "Frame";
+
+    private static final String RUNTIME = PACKAGE + "BytecodeRuntime";
+
+    private static final String INLINE_CACHE = PACKAGE + "InlineCache";
+
+    private static final String TYPE_SPECIALIZATION = PACKAGE + "TypeSpecialization";
+
+    private static final String COERCIONS = PACKAGE + "Coercions";
+
+    private static final String LONG_INSTRUCTION = PACKAGE + "TypeSpecialization$LongInstruction";
+
+    private static final String PARAMETERS = PACKAGE + "Parameters";
+
+    private static final String UNARY_OPERATION = PACKAGE + "Expression$UnaryOperation";
+
+    private static final String BINARY_OPERATION = PACKAGE + "Expression$BinaryOperation";
+
+    private static final String FUNCTION_CALL = PACKAGE + "Expression$FunctionCall";
+
+    private static final String OBJECT = "java/lang/Object";
+
+    private static final String CONSTANTS = "[Ljava/lang/Object;";
+
+    private static final String ENTRY = "(L" + FRAME + ";)Ljava/lang/Object;";
+
+    private static final int METHOD_BUDGET = 100;
+
+    private final Formula formula;
+
+    private final Linkage linkage;
+
+    private final ClassFileWriter writer = new ClassFileWriter(CLASS_NAME, COMPILED_CODE);
+
+    private final List<Object> constants = new ArrayList<>();
+
+    private final Map<Object, Integer> constantIndexes = new IdentityHashMap<>();
+
+    private final List<Expression> entries = new ArrayList<>();
+
+    private final List<Boolean> bodies = new ArrayList<>();
+
+    private final Map<Expression, Integer> entryIndexes = new IdentityHashMap<>();
+
+    private final Map<Expression, Integer> bodyIndexes = new IdentityHashMap<>();
+
+    private ClassFileWriter.Code code;
+
+    private int emitted;
+
+    private BytecodeCompiler(Formula formula, Linkage linkage) {
+        this.formula = formula;
+        this.linkage = linkage;
+    }
+
+    static Executable compile(Formula formula, Expression expression, Linkage linkage) {
+        var compiler = new BytecodeCompiler(formula, linkage);
+        var classFile = compiler.generate(expression);
+        var compiledCode = define(classFile, compiler.constants.toArray());
+        var coercions = formula.coercions;
+        return (scope, variables) -> new Value(new Frame(compiledCode, scope, variables, linkage.slotCount()).run(0), coercions);
+    }
+
+    private static CompiledCode define(byte[] classFile, Object[] constants) {
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            var constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Object[].class));
+            return (CompiledCode) constructor.invoke(constants);
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    private byte[] generate(Expression expression) {
+        writer.field(ACC_PRIVATE | ACC_FINAL, "constants", CONSTANTS);
+        generateConstructor();
+        entry(expression);
+        for (int index = 0; index < entries.size(); index++)
+            generateEntry(index);
+        generateRun();
+        return writer.toByteArray();
+    }
+
+    private void generateConstructor() {
+        var constructor = writer.code();
+        constructor.aload(0);
+        constructor.invokeSpecial(COMPILED_CODE, "<init>", "()V");
+        constructor.aload(0);
+        constructor.aload(1);
+        constructor.putField(CLASS_NAME, "constants", CONSTANTS);
+        constructor.vreturn();
+        writer.method(ACC_PUBLIC, "<init>", "(" + CONSTANTS + ")V", 2, constructor);
+    }
+
+    private void generateEntry(int index) {
+        code = writer.code(CLASS_NAME, FRAME);
+        emitted = 0;
+        var expression = entries.get(index);
+        if (bodies.get(index))
+            emitBody(expression);
+        else
+            emit(expression);
+        code.areturn();
+        writer.method(ACC_PUBLIC, entryName(index), ENTRY, 2, code);
+    }
+
+    private void generateRun() {
+        var run = writer.code();
+        run.iload(1);
+        var tableSwitch = run.tableSwitch(entries.size());
+        for (int index = 0; index < entries.size(); index++) {
+            run.caseLabel(tableSwitch, index);
+            run.aload(0);
+            run.aload(2);
+            run.invokeVirtual(CLASS_NAME, entryName(index), ENTRY);
+            run.areturn();
+        }
+        run.defaultLabel(tableSwitch);
+        run.aconstNull();
+        run.areturn();
+        writer.method(ACC_PUBLIC, "run", "(IL" + FRAME + ";)Ljava/lang/Object;", 3, run);
+    }
+
+    private int entry(Expression expression) {
+        return entry(expression, entryIndexes, false);
+    }
+
+    private int bodyEntry(Expression expression) {
+        return entry(expression, bodyIndexes, true);
+    }
+
+    private int entry(Expression expression, Map<Expression, Integer> indexes, boolean body) {
+        var index = indexes.get(expression);
+        if (index == null) {
+            index = entries.size();
+            entries.add(expression);
+            bodies.add(body);
+            indexes.put(expression, index);
+        }
+        return index;
+    }
+
+    private static String entryName(int index) {
+        return "e" + index;
+    }
+
+    private void emit(Expression expression) {
+        var site = linkage.site(expression);
+        if (site != null && site.hasSlot()) {
+            code.aload(1);
+            code.pushInt(site.slot());
+            code.pushInt(bodyEntry(expression));
+            code.invokeVirtual(FRAME, "memo", "(II)Ljava/lang/Object;");
+        } else if (emitted >= METHOD_BUDGET && isComposite(expression)) {
+            code.aload(0);
+            code.aload(1);
+            code.invokeVirtual(CLASS_NAME, entryName(entry(expression)), ENTRY);
+        } else
+            emitBody(expression);
+    }
+
+    private void emitBody(Expression expression) {
+        if (expression instanceof Empty)
+            code.aconstNull();
+        else {
+            if (isComposite(expression))
+                emitted++;
+            expression.accept(this);
+        }
+    }
+
+    private static boolean isComposite(Expression expression) {
+        return expression instanceof UnaryOperation
+                || expression instanceof BinaryOperation
+                || expression instanceof FunctionCall;
+    }
+
+    private void loadConstant(Object constant, String type) {
+        var index = constantIndexes.computeIfAbsent(constant, key -> {
+            constants.add(key);
+            return constants.size() - 1;
+        });
+        code.aload(0);
+        code.getField(CLASS_NAME, "constants", CONSTANTS);
+        code.pushInt(index);
+        code.aaload();
+        if (!OBJECT.equals(type))
+            code.checkcast(type);
+    }
+
+    @Override
+    public void visit(NumberLiteral numberLiteral) {
+        loadConstant(numberLiteral.value(), OBJECT);
+    }
+
+    @Override
+    public void visit(StringLiteral stringLiteral) {
+        loadConstant(stringLiteral.value(), OBJECT);
+    }
+
+    @Override
+    public void visit(Identifier identifier) {
+        code.aload(1);
+        code.pushInt(linkage.site(identifier).variable());
+        code.ldcString(identifier.name());
+        code.invokeVirtual(FRAME, "variable", "(ILjava/lang/String;)Ljava/lang/Object;");
+    }
+
+    @Override
+    public void visit(UnaryOperation unaryOperation) {
+        emit(unaryOperation.right());
+        var inlineCache = linkage.site(unaryOperation).inlineCache();
+        var specialization = new TypeSpecialization(inlineCache);
+        var operations = formula.unaryOperationTable.operations(Long.class, unaryOperation.operator());
+        var end = operations.length == 1
+                && operations[0].action() instanceof UnaryLongAction action
+                && action.instruction() == LongInstruction.NEGATE
+                ? emitNegate(specialization)
+                : new int[0];
+        loadConstant(specialization, TYPE_SPECIALIZATION);
+        loadConstant(inlineCache, INLINE_CACHE);
+        loadConstant(formula.coercions, COERCIONS);
+        loadConstant(unaryOperation, UNARY_OPERATION);
+        code.invokeStatic(RUNTIME, "unary",
+                "(Ljava/lang/Object;L" + TYPE_SPECIALIZATION + ";L" + INLINE_CACHE + ";L" + COERCIONS + ";L" + UNARY_OPERATION + ";)Ljava/lang/Object;");
+        if (end.length > 0)
+            code.label(end);
+    }
+
+    private int[] emitNegate(TypeSpecialization specialization) {
+        code.dup();
+        loadConstant(specialization, TYPE_SPECIALIZATION);
+        loadConstant(LongInstruction.NEGATE, LONG_INSTRUCTION);
+        code.invokeStatic(RUNTIME, "acceptsInt",
+                "(Ljava/lang/Object;L" + TYPE_SPECIALIZATION + ";L" + LONG_INSTRUCTION + ";)Z");
+        var generic = code.branch(ClassFileWriter.Code.IFEQ);
+        emitLongValue();
+        code.lneg();
+        emitBigInteger();
+        var end = code.branch(ClassFileWriter.Code.GOTO);
+        code.label(generic);
+        return new int[] {end};
+    }
+
+    @Override
+    public void visit(BinaryOperation binaryOperation) {
+        emit(binaryOperation.left());
+        var inlineCache = linkage.site(binaryOperation).inlineCache();
+        if (formula.binaryOperationTable.isLazy(binaryOperation.operator())) {
+            code.aload(1);
+            code.pushInt(entry(binaryOperation.right()));
+            loadConstant(inlineCache, INLINE_CACHE);
+            loadConstant(formula.coercions, COERCIONS);
+            loadConstant(binaryOperation, BINARY_OPERATION);
+            code.invokeStatic(RUNTIME, "lazyBinary",
+                    "(Ljava/lang/Object;L" + FRAME + ";IL" + INLINE_CACHE + ";L" + COERCIONS + ";L" + BINARY_OPERATION + ";)Ljava/lang/Object;");
+        } else {
+            emit(binaryOperation.right());
+            var specialization = new TypeSpecialization(inlineCache);
+            var operations = formula.binaryOperationTable.operations(Long.class, binaryOperation.operator());
+            var end = operations.length == 1 && operations[0].action() instanceof BinaryLongAction action
+                    ? emitLongBinary(specialization, action.instruction())
+                    : new int[0];
+            loadConstant(specialization, TYPE_SPECIALIZATION);
+            loadConstant(inlineCache, INLINE_CACHE);
+            loadConstant(formula.coercions, COERCIONS);
+            loadConstant(binaryOperation, BINARY_OPERATION);
+            code.invokeStatic(RUNTIME, "binary",
+                    "(Ljava/lang/Object;Ljava/lang/Object;L" + TYPE_SPECIALIZATION + ";L" + INLINE_CACHE + ";L" + COERCIONS + ";L" + BINARY_OPERATION + ";)Ljava/lang/Object;");
+            if (end.length > 0)
+                code.label(end);
+        }
+    }
+
+    private int[] emitLongBinary(TypeSpecialization specialization, LongInstruction instruction) {
+        var comparison = comparisonOf(instruction);
+        if (comparison == 0
+                && instruction != LongInstruction.ADD
+                && instruction != LongInstruction.SUBTRACT
+                && instruction != LongInstruction.MULTIPLY)
+            return new int[0];
+
+        code.dup2();
+        loadConstant(specialization, TYPE_SPECIALIZATION);
+        loadConstant(instruction, LONG_INSTRUCTION);
+        code.invokeStatic(RUNTIME, "acceptsInts",
+                "(Ljava/lang/Object;Ljava/lang/Object;L" + TYPE_SPECIALIZATION + ";L" + LONG_INSTRUCTION + ";)Z");
+        var generic = code.branch(ClassFileWriter.Code.IFEQ);
+        code.swap();
+        emitLongValue();
+        code.dup2x1();
+        code.pop2();
+        emitLongValue();
+
+        int[] end;
+        if (comparison != 0) {
+            code.lcmp();
+            var isTrue = code.branch(comparison);
+            code.getStatic("java/lang/Boolean", "FALSE", "Ljava/lang/Boolean;");
+            var isFalseEnd = code.branch(ClassFileWriter.Code.GOTO);
+            code.label(isTrue);
+            code.getStatic("java/lang/Boolean", "TRUE", "Ljava/lang/Boolean;");
+            end = new int[] {isFalseEnd, code.branch(ClassFileWriter.Code.GOTO)};
+        } else {
+            switch (instruction) {
+                case ADD -> code.ladd();
+                case SUBTRACT -> code.lsub();
+                default -> code.lmul();
+            }
+            emitBigInteger();
+            end = new int[] {code.branch(ClassFileWriter.Code.GOTO)};
+        }
+        code.label(generic);
+        return end;
+    }
+
+    private static int comparisonOf(LongInstruction instruction) {
+        return switch (instruction) {
+            case EQUAL -> ClassFileWriter.Code.IFEQ;
+            case NOT_EQUAL -> ClassFileWriter.Code.IFNE;
+            case GREATER_THAN -> ClassFileWriter.Code.IFGT;
+            case GREATER_THAN_OR_EQUAL -> ClassFileWriter.Code.IFGE;
+            case LESS_THAN -> ClassFileWriter.Code.IFLT;
+            case LESS_THAN_OR_EQUAL -> ClassFileWriter.Code.IFLE;
+            default -> 0;
+        };
+    }
+
+    private void emitLongValue() {
+        code.checkcast("java/lang/Number");
+        code.invokeVirtual("java/lang/Number", "longValue", "()J");
+    }
+
+    private void emitBigInteger() {
+        code.invokeStatic("java/math/BigInteger", "valueOf", "(J)Ljava/math/BigInteger;");
+    }
+
+    @Override
+    public void visit(FunctionCall functionCall) {
+        var definition = formula.functions.get(functionCall.name());
+        if (definition == null) {
+            loadConstant(functionCall, FUNCTION_CALL);
+            code.invokeStatic(RUNTIME, "undefined", "(L" + FUNCTION_CALL + ";)Ljava/lang/Object;");
+            return;
+        }
+        var parameterEntries = functionCall.parameters()
+                .stream()
+                .mapToInt(this::entry)
+                .toArray();
+        loadConstant(definition.function(), "java/util/function/Function");
+        code.aload(1);
+        loadConstant(parameterEntries, "[I");
+        loadConstant(formula.coercions, COERCIONS);
+        code.invokeStatic(RUNTIME, "parameters",
+                "(L" + FRAME + ";[IL" + COERCIONS + ";)L" + PARAMETERS + ";");
+        code.invokeInterface("java/util/function/Function", "apply", "(Ljava/lang/Object;)Ljava/lang/Object;");
+    }
+}
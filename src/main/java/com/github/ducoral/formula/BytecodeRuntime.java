@@ -0,0 +1,63 @@
+package com.github.ducoral.formula;
+
+import java.util.function.Supplier;
+
+import static com.github.ducoral.formula.Expression.BinaryOperation;
+import static com.github.ducoral.formula.Expression.FunctionCall;
+import static com.github.ducoral.formula.Expression.UnaryOperation;
+
+final class BytecodeRuntime {
+
+    private BytecodeRuntime() {
+    }
+
+    static Object unary(Object right, TypeSpecialization specialization, InlineCache inlineCache, Coercions coercions, UnaryOperation unaryOperation) {
+        var specialized = specialization.unary(right);
+        if (specialized != null)
+            return specialized;
+        var value = new Value(right, coercions);
+        var operations = inlineCache.operations(value.getType());
+        return OperationResolver.chain(operations, Evaluator.operandsOfUnary(unaryOperation, value));
+    }
+
+    static Object binary(Object left, Object right, TypeSpecialization specialization, InlineCache inlineCache, Coercions coercions, BinaryOperation binaryOperation) {
+        var specialized = specialization.binary(left, right);
+        if (specialized != null)
+            return specialized;
+        var value = new Value(left, coercions);
+        var operations = inlineCache.operations(value.getType());
+        var rightValue = new Value(right, coercions);
+        return OperationResolver.chain(operations, Evaluator.operandsOfBinary(
+                binaryOperation.position(), value, binaryOperation.operator(), () -> rightValue));
+    }
+
+    static Object lazyBinary(Object left, Frame frame, int rightEntry, InlineCache inlineCache, Coercions coercions, BinaryOperation binaryOperation) {
+        var value = new Value(left, coercions);
+        var operations = inlineCache.operations(value.getType());
+        Supplier<Value> right;
+        if (OperationResolver.isLazy(operations))
+            right = () -> new Value(frame.run(rightEntry), coercions);
+        else {
+            var rightValue = new Value(frame.run(rightEntry), coercions);
+            right = () -> rightValue;
+        }
+        return OperationResolver.chain(operations, Evaluator.operandsOfBinary(
+                binaryOperation.position(), value, binaryOperation.operator(), right));
+    }
+
+    static boolean acceptsInt(Object right, TypeSpecialization specialization, TypeSpecialization.LongInstruction instruction) {
+        return specialization.acceptsInt(right, instruction);
+    }
+
+    static boolean acceptsInts(Object left, Object right, TypeSpecialization specialization, TypeSpecialization.LongInstruction instruction) {
+        return specialization.acceptsInts(left, right, instruction);
+    }
+
+    static Parameters parameters(Frame frame, int[] parameterEntries, Coercions coercions) {
+        return new Parameters(coercions, parameterEntries.length, index -> frame.run(parameterEntries[index]));
+    }
+
+    static Object undefined(FunctionCall functionCall) {
+        throw new FormulaException(FormulaExceptionType.FUNCTION_NOT_DEFINED, functionCall.position(), functionCall.name() + "()");
+    }
+}
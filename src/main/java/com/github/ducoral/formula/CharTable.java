@@ -0,0 +1,65 @@
+package com.github.ducoral.formula;
+
+class CharTable {
+
+    private static final int DIGIT = 1;
+    private static final int WHITESPACE = 2;
+    private static final int IDENTIFIER_START = 4;
+    private static final int IDENTIFIER_PART = 8;
+
+    private static final byte[] ASCII = new byte[128];
+
+    static {
+        for (char ch = 0; ch < ASCII.length; ch++) {
+            var flags = 0;
+            if (Character.isDigit(ch))
+                flags |= DIGIT;
+            if (Character.isWhitespace(ch))
+                flags |= WHITESPACE;
+            if (Character.isJavaIdentifierStart(ch))
+                flags |= IDENTIFIER_START;
+            if (ch != '\0' && Character.isJavaIdentifierPart(ch))
+                flags |= IDENTIFIER_PART;
+            ASCII[ch] = (byte) flags;
+        }
+    }
+
+    static boolean isDigit(char ch) {
+        return ch < 128
+                ? (ASCII[ch] & DIGIT) != 0
+                : Character.isDigit(ch);
+    }
+
+    static boolean isWhitespace(char ch) {
+        return ch < 128
+                ? (ASCII[ch] & WHITESPACE) != 0
+                : Character.isWhitespace(ch);
+    }
+
+    static boolean isIdentifierStart(char ch) {
+        return ch < 128
+                ? (ASCII[ch] & IDENTIFIER_START) != 0
+                : Character.isJavaIdentifierStart(ch);
+    }
+
+    static boolean isIdentifierPart(char ch) {
+        return ch < 128
+                ? (ASCII[ch] & IDENTIFIER_PART) != 0
+                : Character.isJavaIdentifierPart(ch);
+    }
+
+    static boolean isStringDelimiter(char ch) {
+        return ch == '"'
+                || ch == '\''
+                || ch == '`';
+    }
+
+    static String symbol(char ch) {
+        return switch (ch) {
+            case '(' -> "(";
+            case ')' -> ")";
+            case ',' -> ",";
+            default -> null;
+        };
+    }
+}
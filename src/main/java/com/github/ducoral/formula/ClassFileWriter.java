@@ -0,0 +1,614 @@
+package com.github.ducoral.formula;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ClassFileWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+
+    static final int ACC_PRIVATE = 0x0002;
+
+    static final int ACC_FINAL = 0x0010;
+
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int VERSION = 61;
+
+    private static final int MAX_SIZE = 0xFFFF;
+
+    private static final int CONSTANT_UTF8 = 1;
+
+    private static final int CONSTANT_INTEGER = 3;
+
+    private static final int CONSTANT_CLASS = 7;
+
+    private static final int CONSTANT_STRING = 8;
+
+    private static final int CONSTANT_FIELDREF = 9;
+
+    private static final int CONSTANT_METHODREF = 10;
+
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+
+    private int constantCount = 1;
+
+    private final List<byte[]> fieldList = new ArrayList<>();
+
+    private final List<byte[]> methodList = new ArrayList<>();
+
+    private final int thisClass;
+
+    private final int superClass;
+
+    ClassFileWriter(String name, String superName) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+        });
+    }
+
+    int classRef(String internalName) {
+        var name = utf8(internalName);
+        return constant("C" + internalName, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(name);
+        });
+    }
+
+    int string(String value) {
+        var utf8 = utf8(value);
+        return constant("S" + value, out -> {
+            out.writeByte(CONSTANT_STRING);
+            out.writeShort(utf8);
+        });
+    }
+
+    int integer(int value) {
+        return constant("I" + value, out -> {
+            out.writeByte(CONSTANT_INTEGER);
+            out.writeInt(value);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        var ownerIndex = classRef(owner);
+        var nameIndex = utf8(name);
+        var descriptorIndex = utf8(descriptor);
+        var nameAndType = constant("N" + name + ':' + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return constant(tag + owner + '.' + name + ':' + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private int constant(String key, ConstantWriter writer) {
+        var index = constantIndexes.get(key);
+        if (index != null)
+            return index;
+        if (constantCount >= MAX_SIZE)
+            throw new CodeTooLargeException("constant pool too large");
+        try {
+            writer.write(constantPool);
+        } catch (IOException exception) {
+            throw new IllegalStateException("invalid constant", exception);
+        }
+        constantIndexes.put(key, constantCount);
+        return constantCount++;
+    }
+
+    void field(int access, String name, String descriptor) {
+        var nameIndex = utf8(name);
+        var descriptorIndex = utf8(descriptor);
+        fieldList.add(bytes(out -> {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(0);
+        }));
+    }
+
+    Code code(String... locals) {
+        return new Code(this, locals);
+    }
+
+    void method(int access, String name, String descriptor, int maxLocals, Code code) {
+        if (code.length() > MAX_SIZE)
+            throw new CodeTooLargeException("method too large");
+        var nameIndex = utf8(name);
+        var descriptorIndex = utf8(descriptor);
+        var codeAttribute = utf8("Code");
+        var stackMapAttribute = code.frames.isEmpty() ? 0 : utf8("StackMapTable");
+        var stackMap = code.stackMap();
+        methodList.add(bytes(out -> {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + code.length() + (stackMap.length == 0 ? 0 : 6 + stackMap.length));
+            out.writeShort(code.maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length());
+            out.write(code.bytes, 0, code.length());
+            out.writeShort(0);
+            if (stackMap.length == 0)
+                out.writeShort(0);
+            else {
+                out.writeShort(1);
+                out.writeShort(stackMapAttribute);
+                out.writeInt(stackMap.length);
+                out.write(stackMap);
+            }
+        }));
+    }
+
+    byte[] toByteArray() {
+        return bytes(out -> {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(constantCount);
+            out.write(constantPoolBytes.toByteArray());
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(fieldList.size());
+            for (var field : fieldList)
+                out.write(field);
+            out.writeShort(methodList.size());
+            for (var method : methodList)
+                out.write(method);
+            out.writeShort(0);
+        });
+    }
+
+    private static byte[] bytes(ConstantWriter writer) {
+        var bytes = new ByteArrayOutputStream();
+        try {
+            writer.write(new DataOutputStream(bytes));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    private interface ConstantWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    static class CodeTooLargeException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CodeTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    static class Code {
+
+        static final int IFEQ = 0x99;
+
+        static final int IFNE = 0x9a;
+
+        static final int IFLT = 0x9b;
+
+        static final int IFGE = 0x9c;
+
+        static final int IFGT = 0x9d;
+
+        static final int IFLE = 0x9e;
+
+        static final int GOTO = 0xa7;
+
+        private static final int ICONST_0 = 0x03;
+
+        private static final int BIPUSH = 0x10;
+
+        private static final int SIPUSH = 0x11;
+
+        private static final int LDC = 0x12;
+
+        private static final int LDC_W = 0x13;
+
+        private static final int ILOAD_0 = 0x1a;
+
+        private static final int ALOAD_0 = 0x2a;
+
+        private static final int AALOAD = 0x32;
+
+        private static final int ACONST_NULL = 0x01;
+
+        private static final int POP2 = 0x58;
+
+        private static final int DUP = 0x59;
+
+        private static final int DUP2 = 0x5c;
+
+        private static final int DUP2_X1 = 0x5d;
+
+        private static final int SWAP = 0x5f;
+
+        private static final int LADD = 0x61;
+
+        private static final int LSUB = 0x65;
+
+        private static final int LMUL = 0x69;
+
+        private static final int LNEG = 0x75;
+
+        private static final int LCMP = 0x94;
+
+        private static final int TABLESWITCH = 0xaa;
+
+        private static final int ARETURN = 0xb0;
+
+        private static final int RETURN = 0xb1;
+
+        private static final int GETSTATIC = 0xb2;
+
+        private static final int GETFIELD = 0xb4;
+
+        private static final int PUTFIELD = 0xb5;
+
+        private static final int INVOKEVIRTUAL = 0xb6;
+
+        private static final int INVOKESPECIAL = 0xb7;
+
+        private static final int INVOKESTATIC = 0xb8;
+
+        private static final int INVOKEINTERFACE = 0xb9;
+
+        private static final int CHECKCAST = 0xc0;
+
+        private final ClassFileWriter writer;
+
+        private final String[] locals;
+
+        private final List<int[]> frames = new ArrayList<>();
+
+        private final Map<Integer, Integer> branchStacks = new HashMap<>();
+
+        private byte[] bytes = new byte[64];
+
+        private int length;
+
+        private int stack;
+
+        private int maxStack;
+
+        private Code(ClassFileWriter writer, String[] locals) {
+            this.writer = writer;
+            this.locals = locals;
+        }
+
+        int length() {
+            return length;
+        }
+
+        void aload(int local) {
+            op(ALOAD_0 + local, 1);
+        }
+
+        void iload(int local) {
+            op(ILOAD_0 + local, 1);
+        }
+
+        void aconstNull() {
+            op(ACONST_NULL, 1);
+        }
+
+        void aaload() {
+            op(AALOAD, -1);
+        }
+
+        void dup() {
+            op(DUP, 1);
+        }
+
+        void dup2() {
+            op(DUP2, 2);
+        }
+
+        void dup2x1() {
+            op(DUP2_X1, 2);
+        }
+
+        void pop2() {
+            op(POP2, -2);
+        }
+
+        void swap() {
+            op(SWAP, 0);
+        }
+
+        void ladd() {
+            op(LADD, -2);
+        }
+
+        void lsub() {
+            op(LSUB, -2);
+        }
+
+        void lmul() {
+            op(LMUL, -2);
+        }
+
+        void lneg() {
+            op(LNEG, 0);
+        }
+
+        void lcmp() {
+            op(LCMP, -3);
+        }
+
+        void areturn() {
+            op(ARETURN, -1);
+        }
+
+        void vreturn() {
+            op(RETURN, 0);
+        }
+
+        void pushInt(int value) {
+            if (value >= -1 && value <= 5)
+                op(ICONST_0 + value, 1);
+            else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                op(BIPUSH, 1);
+                put1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                op(SIPUSH, 1);
+                put2(value);
+            } else
+                ldc(writer.integer(value));
+        }
+
+        void ldcString(String value) {
+            ldc(writer.string(value));
+        }
+
+        private void ldc(int index) {
+            if (index <= 0xFF) {
+                op(LDC, 1);
+                put1(index);
+            } else {
+                op(LDC_W, 1);
+                put2(index);
+            }
+        }
+
+        void getStatic(String owner, String name, String descriptor) {
+            op(GETSTATIC, 1);
+            put2(writer.fieldRef(owner, name, descriptor));
+        }
+
+        void getField(String owner, String name, String descriptor) {
+            op(GETFIELD, 0);
+            put2(writer.fieldRef(owner, name, descriptor));
+        }
+
+        void putField(String owner, String name, String descriptor) {
+            op(PUTFIELD, -2);
+            put2(writer.fieldRef(owner, name, descriptor));
+        }
+
+        void checkcast(String internalName) {
+            op(CHECKCAST, 0);
+            put2(writer.classRef(internalName));
+        }
+
+        void invokeStatic(String owner, String name, String descriptor) {
+            invoke(INVOKESTATIC, owner, name, descriptor, 0);
+        }
+
+        void invokeVirtual(String owner, String name, String descriptor) {
+            invoke(INVOKEVIRTUAL, owner, name, descriptor, 1);
+        }
+
+        void invokeSpecial(String owner, String name, String descriptor) {
+            invoke(INVOKESPECIAL, owner, name, descriptor, 1);
+        }
+
+        void invokeInterface(String owner, String name, String descriptor) {
+            op(INVOKEINTERFACE, returnSize(descriptor) - argumentsSize(descriptor) - 1);
+            put2(writer.interfaceMethodRef(owner, name, descriptor));
+            put1(argumentsSize(descriptor) + 1);
+            put1(0);
+        }
+
+        private void invoke(int opcode, String owner, String name, String descriptor, int receiver) {
+            op(opcode, returnSize(descriptor) - argumentsSize(descriptor) - receiver);
+            put2(writer.methodRef(owner, name, descriptor));
+        }
+
+        int tableSwitch(int count) {
+            var position = length;
+            op(TABLESWITCH, -1);
+            while (length % 4 != 0)
+                put1(0);
+            put4(0);
+            put4(0);
+            put4(count - 1);
+            for (int index = 0; index < count; index++)
+                put4(0);
+            return position;
+        }
+
+        int branch(int opcode) {
+            var position = length;
+            op(opcode, opcode == GOTO ? 0 : -1);
+            put2(0);
+            branchStacks.put(position, stack);
+            return position;
+        }
+
+        void label(int... branches) {
+            for (var branch : branches) {
+                var offset = length - branch;
+                if (offset > Short.MAX_VALUE)
+                    throw new CodeTooLargeException("branch too far");
+                bytes[branch + 1] = (byte) (offset >> 8);
+                bytes[branch + 2] = (byte) offset;
+            }
+            stack = branchStacks.get(branches[0]);
+            frame();
+        }
+
+        void caseLabel(int tableSwitch, int index) {
+            patch4(switchTable(tableSwitch) + 12 + 4 * index, length - tableSwitch);
+            frame();
+        }
+
+        void defaultLabel(int tableSwitch) {
+            patch4(switchTable(tableSwitch), length - tableSwitch);
+            frame();
+        }
+
+        private static int switchTable(int tableSwitch) {
+            return (tableSwitch + 4) & ~3;
+        }
+
+        private void frame() {
+            if (frames.isEmpty() || frames.get(frames.size() - 1)[0] != length)
+                frames.add(new int[] {length, stack});
+        }
+
+        private byte[] stackMap() {
+            if (frames.isEmpty())
+                return new byte[0];
+            return bytes(out -> {
+                out.writeShort(frames.size());
+                var previous = -1;
+                for (var frame : frames) {
+                    var offset = frame[0];
+                    var depth = frame[1];
+                    var delta = offset - previous - 1;
+                    if (depth == 0 && delta <= 63)
+                        out.writeByte(delta);
+                    else if (depth == 0) {
+                        out.writeByte(251);
+                        out.writeShort(delta);
+                    } else if (depth == 1 && delta <= 63) {
+                        out.writeByte(64 + delta);
+                        writeObject(out);
+                    } else if (depth == 1) {
+                        out.writeByte(247);
+                        out.writeShort(delta);
+                        writeObject(out);
+                    } else {
+                        out.writeByte(255);
+                        out.writeShort(delta);
+                        out.writeShort(locals.length);
+                        for (var local : locals) {
+                            out.writeByte(7);
+                            out.writeShort(writer.classRef(local));
+                        }
+                        out.writeShort(depth);
+                        for (int index = 0; index < depth; index++)
+                            writeObject(out);
+                    }
+                    previous = offset;
+                }
+            });
+        }
+
+        private void writeObject(DataOutputStream out) throws IOException {
+            out.writeByte(7);
+            out.writeShort(writer.classRef("java/lang/Object"));
+        }
+
+        private void op(int opcode, int stackDelta) {
+            put1(opcode);
+            stack += stackDelta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void put1(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        private void put2(int value) {
+            put1(value >> 8);
+            put1(value);
+        }
+
+        private void put4(int value) {
+            put2(value >> 16);
+            put2(value);
+        }
+
+        private void patch4(int position, int value) {
+            bytes[position] = (byte) (value >> 24);
+            bytes[position + 1] = (byte) (value >> 16);
+            bytes[position + 2] = (byte) (value >> 8);
+            bytes[position + 3] = (byte) value;
+        }
+
+        private void ensure(int size) {
+            if (length + size > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + size));
+        }
+
+        private static int argumentsSize(String descriptor) {
+            var size = 0;
+            var index = 1;
+            while (descriptor.charAt(index) != ')') {
+                var ch = descriptor.charAt(index);
+                size += ch == 'J' || ch == 'D' ? 2 : 1;
+                while (descriptor.charAt(index) == '[')
+                    index++;
+                index = descriptor.charAt(index) == 'L'
+                        ? descriptor.indexOf(';', index) + 1
+                        : index + 1;
+            }
+            return size;
+        }
+
+        private static int returnSize(String descriptor) {
+            var ch = descriptor.charAt(descriptor.indexOf(')') + 1);
+            return ch == 'V' ? 0 : ch == 'J' || ch == 'D' ? 2 : 1;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.ducoral.formula;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.github.ducoral.formula.Expression.BinaryOperation;
+import static com.github.ducoral.formula.Expression.Empty;
+import static com.github.ducoral.formula.Expression.FunctionCall;
+import static com.github.ducoral.formula.Expression.Identifier;
+import static com.github.ducoral.formula.Expression.NumberLiteral;
+import static com.github.ducoral.formula.Expression.StringLiteral;
+import static com.github.ducoral.formula.Expression.UnaryOperation;
+import static com.github.ducoral.formula.Expression.Visitor;
+
+class ClosureCompiler implements Visitor {
+
+    private final Formula formula;
+
+    private final Linkage linkage;
+
+    private Node result;
+
+    private ClosureCompiler(Formula formula, Linkage linkage) {
+        this.formula = formula;
+        this.linkage = linkage;
+    }
+
+    static Executable compile(Formula formula, Expression expression, Linkage linkage) {
+        var root = new ClosureCompiler(formula, linkage).compile(expression);
+        var slotCount = linkage.slotCount();
+        var coercions = formula.coercions;
+        return (scope, variables) -> new Value(root.evaluate(new Frame(null, scope, variables, slotCount)), coercions);
+    }
+
+    private Node compile(Expression expression) {
+        if (expression instanceof Empty)
+            return frame -> null;
+
+        expression.accept(this);
+        var node = result;
+
+        var site = linkage.site(expression);
+        if (site == null || !site.hasSlot())
+            return node;
+
+        var slot = site.slot();
+        Function<Frame, Object> evaluation = node::evaluate;
+        return frame -> frame.memo(slot, evaluation);
+    }
+
+    @Override
+    public void visit(NumberLiteral numberLiteral) {
+        var value = numberLiteral.value();
+        result = frame -> value;
+    }
+
+    @Override
+    public void visit(StringLiteral stringLiteral) {
+        var value = stringLiteral.value();
+        result = frame -> value;
+    }
+
+    @Override
+    public void visit(Identifier identifier) {
+        var index = linkage.site(identifier).variable();
+        var name = identifier.name();
+        result = frame -> frame.variable(index, name);
+    }
+
+    @Override
+    public void visit(UnaryOperation unaryOperation) {
+        var right = compile(unaryOperation.right());
+        var inlineCache = linkage.site(unaryOperation).inlineCache();
+        var coercions = formula.coercions;
+        var specialization = new TypeSpecialization(inlineCache);
+        result = frame -> {
+            var rightObject = right.evaluate(frame);
+            var specialized = specialization.unary(rightObject);
+            if (specialized != null)
+                return specialized;
+            var value = new Value(rightObject, coercions);
+            var operations = inlineCache.operations(value.getType());
+            return OperationResolver.chain(operations, Evaluator.operandsOfUnary(unaryOperation, value));
+        };
+
+        if (unaryOperation.right() instanceof Identifier identifier) {
+            var generic = result;
+            var index = linkage.site(identifier).variable();
+            var name = identifier.name();
+            result = frame -> {
+                if (frame.hasLong(index, name)) {
+                    var specialized = specialization.unaryOfLong(frame.longVariable(index, name));
+                    if (specialized != null)
+                        return specialized;
+                }
+                return generic.evaluate(frame);
+            };
+        }
+    }
+
+    @Override
+    public void visit(BinaryOperation binaryOperation) {
+        var left = compile(binaryOperation.left());
+        var right = compile(binaryOperation.right());
+        var inlineCache = linkage.site(binaryOperation).inlineCache();
+        var position = binaryOperation.position();
+        var operator = binaryOperation.operator();
+        var coercions = formula.coercions;
+
+        if (!formula.binaryOperationTable.isLazy(operator)) {
+            var specialization = new TypeSpecialization(inlineCache);
+            result = frame -> {
+                var leftObject = left.evaluate(frame);
+                var rightObject = right.evaluate(frame);
+                var specialized = specialization.binary(leftObject, rightObject);
+                if (specialized != null)
+                    return specialized;
+                var value = new Value(leftObject, coercions);
+                var operations = inlineCache.operations(value.getType());
+                var rightValue = new Value(rightObject, coercions);
+                return OperationResolver.chain(operations, Evaluator.operandsOfBinary(position, value, operator, () -> rightValue));
+            };
+            if (binaryOperation.left() instanceof Identifier leftIdentifier
+                    && binaryOperation.right() instanceof Identifier rightIdentifier)
+                result = longVariables(leftIdentifier, rightIdentifier, specialization, result);
+            return;
+        }
+
+        result = frame -> {
+            var value = new Value(left.evaluate(frame), coercions);
+            var operations = inlineCache.operations(value.getType());
+            Supplier<Value> rightSupplier;
+            if (OperationResolver.isLazy(operations))
+                rightSupplier = () -> new Value(right.evaluate(frame), coercions);
+            else {
+                var rightValue = new Value(right.evaluate(frame), coercions);
+                rightSupplier = () -> rightValue;
+            }
+            return OperationResolver.chain(operations, Evaluator.operandsOfBinary(position, value, operator, rightSupplier));
+        };
+    }
+
+    private Node longVariables(Identifier left, Identifier right, TypeSpecialization specialization, Node generic) {
+        var leftIndex = linkage.site(left).variable();
+        var leftName = left.name();
+        var rightIndex = linkage.site(right).variable();
+        var rightName = right.name();
+        return frame -> {
+            if (frame.hasLong(leftIndex, leftName) && frame.hasLong(rightIndex, rightName)) {
+                var specialized = specialization.binaryOfLongs(
+                        frame.longVariable(leftIndex, leftName),
+                        frame.longVariable(rightIndex, rightName));
+                if (specialized != null)
+                    return specialized;
+            }
+            return generic.evaluate(frame);
+        };
+    }
+
+    @Override
+    public void visit(FunctionCall functionCall) {
+        var parameters = functionCall.parameters()
+                .stream()
+                .map(this::compile)
+                .toArray(Node[]::new);
+        var definition = formula.functions.get(functionCall.name());
+        if (definition == null) {
+            result = frame -> {
+                throw new FormulaException(FormulaExceptionType.FUNCTION_NOT_DEFINED, functionCall.position(), functionCall.name() + "()");
+            };
+            return;
+        }
+        var function = definition.function();
+        var coercions = formula.coercions;
+        result = frame -> function.apply(new Parameters(coercions, parameters.length, index -> parameters[index].evaluate(frame)));
+    }
+
+    interface Node {
+        Object evaluate(Frame frame);
+    }
+}
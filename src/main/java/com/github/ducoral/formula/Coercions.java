@@ -0,0 +1,116 @@
+package com.github.ducoral.formula;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+class Coercions {
+
+    static final Coercions DEFAULT = new Coercions(Map.of());
+
+    private static final Coercion FROM_STRING = new Coercion(
+            value -> new BigInteger(String.valueOf(value)),
+            value -> new BigDecimal(String.valueOf(value)));
+
+    private static final Coercion FROM_LONG = new Coercion(
+            value -> BigInteger.valueOf(((Number) value).longValue()),
+            value -> BigDecimal.valueOf(((Number) value).longValue()));
+
+    private static final Coercion FROM_BIG_INTEGER = new Coercion(
+            value -> (BigInteger) value,
+            value -> new BigDecimal((BigInteger) value));
+
+    private static final Coercion FROM_BIG_DECIMAL = new Coercion(
+            FROM_STRING.toBigInteger,
+            value -> (BigDecimal) value);
+
+    private static final Coercion FROM_DOUBLE = new Coercion(
+            FROM_STRING.toBigInteger,
+            value -> BigDecimal.valueOf((Double) value));
+
+    private static final Coercion FROM_FIXED_DECIMAL = new Coercion(
+            FROM_STRING.toBigInteger,
+            value -> ((FixedDecimal) value).toBigDecimal());
+
+    private final Map<Class<?>, Coercion> registered;
+
+    private final ClassValue<Coercion> coercions = new ClassValue<>() {
+        @Override
+        protected Coercion computeValue(Class<?> type) {
+            for (var current = type; current != null; current = current.getSuperclass()) {
+                var coercion = registered.get(current);
+                if (coercion != null)
+                    return coercion;
+            }
+            return builtIn(type);
+        }
+    };
+
+    Coercions(Map<Class<?>, Coercion> registered) {
+        this.registered = Map.copyOf(registered);
+    }
+
+    static <T> Coercion coercion(
+            Class<T> type,
+            Function<? super T, BigInteger> toBigInteger,
+            Function<? super T, BigDecimal> toBigDecimal) {
+
+        return new Coercion(
+                value -> toBigInteger.apply(type.cast(value)),
+                value -> toBigDecimal.apply(type.cast(value)));
+    }
+
+    BigInteger toBigInteger(Object value) {
+        return coercionOf(value).toBigInteger.apply(value);
+    }
+
+    BigDecimal toBigDecimal(Object value) {
+        return coercionOf(value).toBigDecimal.apply(value);
+    }
+
+    long toLong(Object value) {
+        if (value instanceof Long
+                || value instanceof Integer
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof AtomicLong
+                || value instanceof AtomicInteger)
+            return ((Number) value).longValue();
+        else if (value instanceof BigInteger bigInteger)
+            return bigInteger.longValueExact();
+        else
+            return toBigDecimal(value).toBigInteger().longValueExact();
+    }
+
+    private Coercion coercionOf(Object value) {
+        return value == null
+                ? FROM_STRING
+                : coercions.get(value.getClass());
+    }
+
+    private static Coercion builtIn(Class<?> type) {
+        if (type == Byte.class
+                || type == Short.class
+                || type == Integer.class
+                || type == Long.class
+                || type == AtomicInteger.class
+                || type == AtomicLong.class)
+            return FROM_LONG;
+        else if (type == BigInteger.class)
+            return FROM_BIG_INTEGER;
+        else if (type == BigDecimal.class)
+            return FROM_BIG_DECIMAL;
+        else if (type == Double.class)
+            return FROM_DOUBLE;
+        else if (type == FixedDecimal.class)
+            return FROM_FIXED_DECIMAL;
+        else
+            return FROM_STRING;
+    }
+
+    record Coercion(Function<Object, BigInteger> toBigInteger, Function<Object, BigDecimal> toBigDecimal) {
+    }
+}
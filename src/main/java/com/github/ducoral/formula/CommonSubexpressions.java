@@ -0,0 +1,104 @@
+package com.github.ducoral.formula;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.ducoral.formula.Expression.BinaryOperation;
+import static com.github.ducoral.formula.Expression.FunctionCall;
+import static com.github.ducoral.formula.Expression.Identifier;
+import static com.github.ducoral.formula.Expression.NumberLiteral;
+import static com.github.ducoral.formula.Expression.StringLiteral;
+import static com.github.ducoral.formula.Expression.UnaryOperation;
+import static com.github.ducoral.formula.Expression.Visitor;
+
+class CommonSubexpressions implements Visitor {
+
+    private final Formula formula;
+
+    private final Map<Expression, List<Expression>> occurrences = new LinkedHashMap<>();
+
+    private Expression shape;
+
+    private boolean pure;
+
+    private CommonSubexpressions(Formula formula) {
+        this.formula = formula;
+    }
+
+    static Map<Expression, Integer> slots(Formula formula, Expression expression) {
+        var analyzer = new CommonSubexpressions(formula);
+        expression.accept(analyzer);
+
+        var slots = new IdentityHashMap<Expression, Integer>();
+        var slot = 0;
+        for (var nodes : analyzer.occurrences.values())
+            if (nodes.size() > 1) {
+                for (var node : nodes)
+                    slots.put(node, slot);
+                slot++;
+            }
+        return slots;
+    }
+
+    @Override
+    public void visit(NumberLiteral numberLiteral) {
+        shape = new NumberLiteral(Position.NULL, numberLiteral.value());
+        pure = true;
+    }
+
+    @Override
+    public void visit(StringLiteral stringLiteral) {
+        shape = new StringLiteral(Position.NULL, stringLiteral.value());
+        pure = true;
+    }
+
+    @Override
+    public void visit(Identifier identifier) {
+        shape = new Identifier(Position.NULL, identifier.name());
+        pure = true;
+    }
+
+    @Override
+    public void visit(UnaryOperation unaryOperation) {
+        unaryOperation.right().accept(this);
+        shape = new UnaryOperation(Position.NULL, unaryOperation.operator(), shape);
+        pure &= formula.unaryOperationTable.isPure(unaryOperation.operator());
+        record(unaryOperation);
+    }
+
+    @Override
+    public void visit(BinaryOperation binaryOperation) {
+        binaryOperation.left().accept(this);
+        var left = shape;
+        var leftPure = pure;
+        binaryOperation.right().accept(this);
+        shape = new BinaryOperation(Position.NULL, left, binaryOperation.operator(), shape);
+        pure &= leftPure && formula.binaryOperationTable.isPure(binaryOperation.operator());
+        record(binaryOperation);
+    }
+
+    @Override
+    public void visit(FunctionCall functionCall) {
+        var parameters = new ArrayList<Expression>(functionCall.parameters().size());
+        var parametersPure = true;
+        for (var parameter : functionCall.parameters()) {
+            parameter.accept(this);
+            parameters.add(shape);
+            parametersPure &= pure;
+        }
+        var definition = formula.functions.get(functionCall.name());
+        shape = new FunctionCall(Position.NULL, functionCall.name(), parameters);
+        pure = parametersPure && definition != null && definition.pure();
+        record(functionCall);
+    }
+
+    private void record(Expression node) {
+        if (pure)
+            occurrences
+                    .computeIfAbsent(shape, key -> new ArrayList<>())
+                    .add(node);
+    }
+}
@@ -0,0 +1,6 @@
+package com.github.ducoral.formula;
+
+abstract class CompiledCode {
+
+    abstract Object run(int entry, Frame frame);
+}
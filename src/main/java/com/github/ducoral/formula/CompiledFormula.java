@@ -0,0 +1,175 @@
+package com.github.ducoral.formula;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CompiledFormula {
+
+    private final Formula formula;
+
+    private final String input;
+
+    private volatile Expression expression;
+
+    private final Linkage linkage;
+
+    private volatile Program program;
+
+    private volatile Executable executable;
+
+    private volatile Engine engine;
+
+    private volatile boolean promotionPending;
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    CompiledFormula(Formula formula, String input, Expression expression) {
+        this.formula = formula;
+        this.input = input;
+        this.expression = expression;
+        this.linkage = Linkage.of(formula, expression);
+        this.promotionPending = formula.tieredEngine != null;
+        install(promotionPending ? Engine.INTERPRETER : formula.engine);
+    }
+
+    CompiledFormula(Formula formula, Program program) {
+        this.formula = formula;
+        this.input = program.input;
+        this.linkage = Linkage.of(program.variables(), program.slotCount);
+        this.program = program;
+        this.engine = Engine.VM;
+        this.executable = VirtualMachine.executable(formula, program);
+    }
+
+    private Executable executable(Engine engine) {
+        return switch (engine) {
+            case INTERPRETER -> Evaluator.executable(formula, expression, linkage);
+            case CLOSURE -> ClosureCompiler.compile(formula, expression, linkage);
+            case BYTECODE -> BytecodeCompiler.compile(formula, expression, linkage);
+            case VM -> VirtualMachine.executable(formula, program());
+        };
+    }
+
+    private boolean install(Engine target) {
+        try {
+            executable = executable(target);
+            engine = target;
+            return true;
+        } catch (ClassFileWriter.CodeTooLargeException tooLarge) {
+            formula.failedPromotionCount.incrementAndGet();
+            executable = executable(Engine.CLOSURE);
+            engine = Engine.CLOSURE;
+            return false;
+        }
+    }
+
+    private Executable executable() {
+        if (promotionPending && evaluations.incrementAndGet() == formula.tieredThreshold) {
+            promotionPending = false;
+            try {
+                formula.tieredExecutor.execute(this::promote);
+            } catch (RejectedExecutionException rejected) {
+                formula.failedPromotionCount.incrementAndGet();
+                evaluations.set(0);
+                promotionPending = true;
+            }
+        }
+        return executable;
+    }
+
+    private void promote() {
+        try {
+            if (install(formula.tieredEngine))
+                formula.promotedCount.incrementAndGet();
+        } catch (RuntimeException | LinkageError failure) {
+            formula.failedPromotionCount.incrementAndGet();
+        }
+    }
+
+    public Engine engine() {
+        return engine;
+    }
+
+    public String input() {
+        return input;
+    }
+
+    public Expression expression() {
+        var current = expression;
+        if (current == null) {
+            var rebuilt = formula.expression(input);
+            if (!rebuilt.isOK())
+                throw new IllegalStateException("the input of the loaded program does not parse: " + rebuilt.exception().getMessage());
+            current = rebuilt.value();
+            if (!program.sameCode(ProgramCompiler.compile(input, current, Linkage.of(formula, current))))
+                throw new IllegalStateException("the loaded program was not compiled from this formula's expression of its input");
+            expression = current;
+        }
+        return current;
+    }
+
+    public String explain() {
+        return Formula.explain(expression());
+    }
+
+    public Program program() {
+        var current = program;
+        if (current == null) {
+            current = ProgramCompiler.compile(input, expression, linkage);
+            program = current;
+        }
+        return current;
+    }
+
+    public List<String> variables() {
+        return linkage.variables();
+    }
+
+    public Bindings bindings() {
+        return new Bindings(linkage, formula.coercions);
+    }
+
+    public Result<Value> evaluate() {
+        return evaluate(Map.of());
+    }
+
+    public Result<Value> evaluate(Map<String, Object> scope) {
+        assert scope != null;
+
+        return evaluate(Scope.of(scope));
+    }
+
+    public Result<Value> evaluate(Scope scope) {
+        assert scope != null;
+
+        try {
+            var value = executable().execute(scope, null);
+            return Result.ofValue(value);
+        } catch (FormulaException exception) {
+            return Result.ofException(input, exception);
+        }
+    }
+
+    public Result<Value> evaluate(Bindings bindings) {
+        assert bindings != null;
+
+        if (!bindings.isBoundTo(linkage))
+            throw new IllegalArgumentException("bindings were not created by this formula");
+        return evaluate(bindings.values);
+    }
+
+    public Result<Value> evaluate(Object[] values) {
+        assert values != null;
+
+        if (values.length != linkage.variables().size())
+            throw new IllegalArgumentException("expected " + linkage.variables().size() + " values but got " + values.length);
+        try {
+            var value = executable().execute(null, values);
+            return Result.ofValue(value);
+        } catch (FormulaException exception) {
+            return Result.ofException(input, exception);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.ducoral.formula;
+
+import java.util.ArrayList;
+
+import static com.github.ducoral.formula.Expression.BinaryOperation;
+import static com.github.ducoral.formula.Expression.FunctionCall;
+import static com.github.ducoral.formula.Expression.Identifier;
+import static com.github.ducoral.formula.Expression.NumberLiteral;
+import static com.github.ducoral.formula.Expression.StringLiteral;
+import static com.github.ducoral.formula.Expression.UnaryOperation;
+import static com.github.ducoral.formula.Expression.Visitor;
+
+class ConstantFolder implements Visitor {
+
+    private static final Scope NO_SCOPE = name -> null;
+
+    private final Formula formula;
+
+    private Expression result;
+
+    private ConstantFolder(Formula formula) {
+        this.formula = formula;
+    }
+
+    static Expression fold(Formula formula, Expression expression) {
+        var folder = new ConstantFolder(formula);
+        expression.accept(folder);
+        return folder.result == null ? expression : folder.result;
+    }
+
+    @Override
+    public void visit(NumberLiteral numberLiteral) {
+        result = numberLiteral;
+    }
+
+    @Override
+    public void visit(StringLiteral stringLiteral) {
+        result = stringLiteral;
+    }
+
+    @Override
+    public void visit(Identifier identifier) {
+        result = identifier;
+    }
+
+    @Override
+    public void visit(UnaryOperation unaryOperation) {
+        var right = fold(unaryOperation.right());
+        var operation = right == unaryOperation.right()
+                ? unaryOperation
+                : new UnaryOperation(unaryOperation.position(), unaryOperation.operator(), right);
+        result = isConstant(right) && formula.unaryOperationTable.isPure(unaryOperation.operator())
+                ? evaluate(operation)
+                : operation;
+    }
+
+    @Override
+    public void visit(BinaryOperation binaryOperation) {
+        var left = fold(binaryOperation.left());
+        var right = fold(binaryOperation.right());
+        var operation = left == binaryOperation.left() && right == binaryOperation.right()
+                ? binaryOperation
+                : new BinaryOperation(binaryOperation.position(), left, binaryOperation.operator(), right);
+        result = isConstant(left) && isConstant(right) && formula.binaryOperationTable.isPure(binaryOperation.operator())
+                ? evaluate(operation)
+                : operation;
+    }
+
+    @Override
+    public void visit(FunctionCall functionCall) {
+        var parameters = new ArrayList<Expression>(functionCall.parameters().size());
+        var changed = false;
+        var constant = true;
+        for (var parameter : functionCall.parameters()) {
+            var folded = fold(parameter);
+            parameters.add(folded);
+            changed |= folded != parameter;
+            constant &= isConstant(folded);
+        }
+        var call = changed
+                ? new FunctionCall(functionCall.position(), functionCall.name(), parameters)
+                : functionCall;
+        var definition = formula.functions.get(functionCall.name());
+        result = constant && definition != null && definition.pure() ? evaluate(call) : call;
+    }
+
+    private Expression fold(Expression expression) {
+        expression.accept(this);
+        return result;
+    }
+
+    private Expression evaluate(Expression expression) {
+        Object value;
+        try {
+            value = new Evaluator(formula, NO_SCOPE)
+                    .evaluate(expression)
+                    .asObject();
+        } catch (RuntimeException exception) {
+            return expression;
+        }
+        if (value instanceof Number)
+            return new NumberLiteral(expression.position(), value);
+        else if (value instanceof String string)
+            return new StringLiteral(expression.position(), string);
+        else
+            return expression;
+    }
+
+    private static boolean isConstant(Expression expression) {
+        return expression instanceof NumberLiteral
+                || expression instanceof StringLiteral;
+    }
+}
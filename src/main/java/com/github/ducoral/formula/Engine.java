@@ -0,0 +1,12 @@
+package com.github.ducoral.formula;
+
+public enum Engine {
+
+    INTERPRETER,
+
+    CLOSURE,
+
+    BYTECODE,
+
+    VM
+}
@@ -1,6 +1,7 @@
 package com.github.ducoral.formula;
 
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Supplier;
 
 import static com.github.ducoral.formula.Expression.BinaryOperation;
@@ -13,20 +14,59 @@ import static com.github.ducoral.formula.Expression.Visitor;
 
 class Evaluator implements Visitor {
 
+    private static final Object NOT_EVALUATED = new Object();
+
+    private static final Scope NO_SCOPE = name -> null;
+
     private final Formula formula;
 
-    private final Map<String, Object> scope;
+    private final Scope scope;
+
+    private final Linkage linkage;
+
+    private final Object[] slots;
+
+    private final Object[] variables;
+
+    private Node node;
 
     private Object result;
 
-    Evaluator(Formula formula, Map<String, Object> scope) {
+    Evaluator(Formula formula, Scope scope) {
+        this(formula, scope, Linkage.NONE);
+    }
+
+    Evaluator(Formula formula, Scope scope, Linkage linkage) {
+        this(formula, scope, linkage, null);
+    }
+
+    Evaluator(Formula formula, Linkage linkage, Object[] variables) {
+        this(formula, NO_SCOPE, linkage, variables);
+    }
+
+    private Evaluator(Formula formula, Scope scope, Linkage linkage, Object[] variables) {
         this.formula = formula;
         this.scope = scope;
+        this.linkage = linkage;
+        this.variables = variables;
+        this.slots = new Object[linkage.slotCount()];
+        Arrays.fill(slots, NOT_EVALUATED);
+    }
+
+    static Executable executable(Formula formula, Expression expression, Linkage linkage) {
+        var root = Node.of(expression, linkage);
+        return (scope, variables) -> (variables == null
+                ? new Evaluator(formula, scope, linkage)
+                : new Evaluator(formula, linkage, variables))
+                .evaluate(root);
     }
 
     public Value evaluate(Expression expression) {
-        expression.accept(this);
-        return new Value(result);
+        return evaluate(Node.of(expression, linkage));
+    }
+
+    private Value evaluate(Node root) {
+        return new Value(valueOf(root), formula.coercions);
     }
 
     @Override
@@ -41,54 +81,94 @@ class Evaluator implements Visitor {
 
     @Override
     public void visit(Identifier identifier) {
-        result = scope.get(identifier.name());
+        result = variables == null
+                ? scope.get(identifier.name())
+                : variables[node.site().variable()];
     }
 
     @Override
     public void visit(UnaryOperation unaryOperation) {
-        unaryOperation.right().accept(this);
-        var value = new Value(result);
-        var operationResolver =
-                new OperationResolver(formula.unaryOperations, value.getType(), unaryOperation.operator());
+        var current = node;
+        var inlineCache = inlineCacheOf(current.site());
+        var value = new Value(valueOf(current.operands()[0]), formula.coercions);
+        var operationResolver = new OperationResolver(
+                operations(inlineCache, formula.unaryOperationTable, unaryOperation.operator(), value.getType()));
         result = operationResolver.chain(operandsOfUnary(unaryOperation, value));
     }
 
     @Override
     public void visit(BinaryOperation binaryOperation) {
-        binaryOperation.left().accept(this);
-        var value = new Value(result);
-        var operationResolver =
-                new OperationResolver(formula.binaryOperations, value.getType(), binaryOperation.operator());
-        var operands = operandsOfBinary(binaryOperation.position(), value, binaryOperation.operator(), () -> {
-            binaryOperation.right().accept(this);
-            return new Value(result);
-        });
+        var current = node;
+        var inlineCache = inlineCacheOf(current.site());
+        var value = new Value(valueOf(current.operands()[0]), formula.coercions);
+        var operationResolver = new OperationResolver(
+                operations(inlineCache, formula.binaryOperationTable, binaryOperation.operator(), value.getType()));
+        Supplier<Value> right;
+        if (operationResolver.isLazy())
+            right = () -> new Value(valueOf(current.operands()[1]), formula.coercions);
+        else {
+            var rightValue = new Value(valueOf(current.operands()[1]), formula.coercions);
+            right = () -> rightValue;
+        }
+        var operands = operandsOfBinary(binaryOperation.position(), value, binaryOperation.operator(), right);
         result = operationResolver.chain(operands);
     }
 
     @Override
     public void visit(FunctionCall functionCall) {
-        if (!formula.functions.containsKey(functionCall.name()))
+        var definition = formula.functions.get(functionCall.name());
+        if (definition == null)
             throw new FormulaException(FormulaExceptionType.FUNCTION_NOT_DEFINED, functionCall.position(), functionCall.name() + "()");
-        var call = formula.functions.get(functionCall.name());
-        var parameters = new Parameters(functionCall.parameters().size(), index -> {
-            functionCall.parameters().get(index).accept(this);
-            return new Value(result);
-        });
+        var call = definition.function();
+        var operands = node.operands();
+        var parameters = new Parameters(formula.coercions, operands.length, index -> valueOf(operands[index]));
         result = call.apply(parameters);
     }
 
-    private static Operands operandsOfUnary(UnaryOperation operation, Value value) {
+    private Object valueOf(Node operand) {
+        var site = operand.site();
+        if (site == null || !site.hasSlot())
+            return accept(operand);
+
+        var value = slots[site.slot()];
+        if (value == NOT_EVALUATED) {
+            value = accept(operand);
+            slots[site.slot()] = value;
+        }
+        return result = value;
+    }
+
+    private Object accept(Node operand) {
+        node = operand;
+        operand.expression().accept(this);
+        return result;
+    }
+
+    private static InlineCache inlineCacheOf(Site site) {
+        return site == null ? null : site.inlineCache();
+    }
+
+    private static Operation[] operations(InlineCache inlineCache, OperationTable operationTable, String operator, Class<?> type) {
+        return inlineCache == null
+                ? operationTable.operations(type, operator)
+                : inlineCache.operations(type);
+    }
+
+    static Operands operandsOfUnary(UnaryOperation operation, Value value) {
+        return operandsOfUnary(operation.position(), operation.operator(), value);
+    }
+
+    static Operands operandsOfUnary(Position position, String operator, Value value) {
         return new Operands(
-                operation.position(),
+                position,
                 () -> value,
                 operands -> String.format(
                         "%s %s",
-                        operation.operator(),
+                        operator,
                         operands.right().getTypeName()));
     }
 
-    private static Operands operandsOfBinary(Position position, Value left, String operator, Supplier<Value> rightSupplier) {
+    static Operands operandsOfBinary(Position position, Value left, String operator, Supplier<Value> rightSupplier) {
         return new Operands(
                 position,
                 () -> left,
@@ -99,4 +179,25 @@ class Evaluator implements Visitor {
                         operator,
                         operands.right().getTypeName()));
     }
-}
\ No newline at end of file
+
+    private record Node(Expression expression, Site site, Node[] operands) {
+
+        static Node of(Expression expression, Linkage linkage) {
+            return new Node(expression, linkage.site(expression), operandsOf(expression)
+                    .stream()
+                    .map(operand -> of(operand, linkage))
+                    .toArray(Node[]::new));
+        }
+
+        private static List<Expression> operandsOf(Expression expression) {
+            if (expression instanceof UnaryOperation unaryOperation)
+                return List.of(unaryOperation.right());
+            else if (expression instanceof BinaryOperation binaryOperation)
+                return List.of(binaryOperation.left(), binaryOperation.right());
+            else if (expression instanceof FunctionCall functionCall)
+                return functionCall.parameters();
+            else
+                return List.of();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.github.ducoral.formula;
+
+interface Executable {
+
+    Value execute(Scope scope, Object[] variables);
+}
@@ -2,6 +2,7 @@ package com.github.ducoral.formula;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.MathContext;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -24,11 +25,14 @@ class ExpressionParser {
 
     private final Tokenizer tokenizer;
 
-    private final OperatorPrecedence operatorPrecedence;
+    private final NumericMode numericMode;
 
-    ExpressionParser(Tokenizer tokenizer, OperatorPrecedence operatorPrecedence) {
+    private final MathContext mathContext;
+
+    ExpressionParser(Tokenizer tokenizer, NumericMode numericMode, MathContext mathContext) {
         this.tokenizer = tokenizer;
-        this.operatorPrecedence = operatorPrecedence;
+        this.numericMode = numericMode;
+        this.mathContext = mathContext;
     }
 
     Expression parse() {
@@ -53,14 +57,12 @@ class ExpressionParser {
         return new UnaryOperation(operator.position(), operator.lexeme(), parseTerm());
     }
 
-    private Expression parseBinaryOperation(int precedence) {
-        if (!operatorPrecedence.hasOperatorsWithPrecedence(precedence))
-            return parseTerm();
-
-        var operation = parseBinaryOperation(precedence + 1);
-        while (tokenizer.isOperatorOfPrecedence(precedence)) {
+    private Expression parseBinaryOperation(int minimumLevel) {
+        var operation = parseTerm();
+        int level;
+        while ((level = tokenizer.operatorLevel()) != OperatorPrecedence.NONE && level >= minimumLevel) {
             var operator = accept(OPERATOR).lexeme();
-            operation = new BinaryOperation(operation.position(), operation, operator, parseBinaryOperation(precedence + 1));
+            operation = new BinaryOperation(operation.position(), operation, operator, parseBinaryOperation(level + 1));
         }
         return operation;
     }
@@ -71,9 +73,9 @@ class ExpressionParser {
         else if (tokenizer.isType(IDENTIFIER))
             return parseIdentifierOrFunction();
         else if (tokenizer.isType(INTEGER))
-            return new NumberLiteral(tokenizer.position(), new BigInteger(accept(INTEGER).lexeme()));
+            return new NumberLiteral(tokenizer.position(), integer(accept(INTEGER).lexeme()));
         else if (tokenizer.isType(DECIMAL))
-            return new NumberLiteral(tokenizer.position(), new BigDecimal(accept(DECIMAL).lexeme()));
+            return new NumberLiteral(tokenizer.position(), decimal(accept(DECIMAL).lexeme()));
         else if (tokenizer.isType(STRING)) {
             return new StringLiteral(tokenizer.position(), accept(STRING).lexeme());
         } else if (tokenizer.isType(OPERATOR)) {
@@ -82,6 +84,20 @@ class ExpressionParser {
             throw new FormulaException(INVALID_TOKEN, tokenizer.position(), tokenizer.token());
     }
 
+    private Object integer(String lexeme) {
+        return numericMode == NumericMode.DOUBLE
+                ? Double.valueOf(lexeme)
+                : new BigInteger(lexeme);
+    }
+
+    private Object decimal(String lexeme) {
+        return switch (numericMode) {
+            case EXACT -> new BigDecimal(lexeme);
+            case DOUBLE -> Double.valueOf(lexeme);
+            case DECIMAL64 -> new BigDecimal(lexeme, mathContext);
+        };
+    }
+
     private Expression parseIdentifierOrFunction() {
         var identifier = accept(IDENTIFIER);
         return tokenizer.isLexeme("(")
@@ -0,0 +1,40 @@
+package com.github.ducoral.formula;
+
+import static com.github.ducoral.formula.Expression.BinaryOperation;
+import static com.github.ducoral.formula.Expression.FunctionCall;
+import static com.github.ducoral.formula.Expression.Identifier;
+import static com.github.ducoral.formula.Expression.NumberLiteral;
+import static com.github.ducoral.formula.Expression.StringLiteral;
+import static com.github.ducoral.formula.Expression.UnaryOperation;
+import static com.github.ducoral.formula.Expression.Visitor;
+
+class ExpressionWalker implements Visitor {
+
+    @Override
+    public void visit(NumberLiteral numberLiteral) {
+    }
+
+    @Override
+    public void visit(StringLiteral stringLiteral) {
+    }
+
+    @Override
+    public void visit(Identifier identifier) {
+    }
+
+    @Override
+    public void visit(UnaryOperation unaryOperation) {
+        unaryOperation.right().accept(this);
+    }
+
+    @Override
+    public void visit(BinaryOperation binaryOperation) {
+        binaryOperation.left().accept(this);
+        binaryOperation.right().accept(this);
+    }
+
+    @Override
+    public void visit(FunctionCall functionCall) {
+        functionCall.parameters().forEach(parameter -> parameter.accept(this));
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.ducoral.formula;
+
+import java.math.BigDecimal;
+
+public final class FixedDecimal extends Number implements Comparable<FixedDecimal> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L,
+            10L,
+            100L,
+            1_000L,
+            10_000L,
+            100_000L,
+            1_000_000L,
+            10_000_000L,
+            100_000_000L,
+            1_000_000_000L,
+            10_000_000_000L,
+            100_000_000_000L,
+            1_000_000_000_000L,
+            10_000_000_000_000L,
+            100_000_000_000_000L,
+            1_000_000_000_000_000L,
+            10_000_000_000_000_000L,
+            100_000_000_000_000_000L,
+            1_000_000_000_000_000_000L
+    };
+
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final long unscaledValue;
+
+    private final int scale;
+
+    private FixedDecimal(long unscaledValue, int scale) {
+        this.unscaledValue = unscaledValue;
+        this.scale = scale;
+    }
+
+    public static FixedDecimal of(long unscaledValue, int scale) {
+        if (scale < 0)
+            throw new IllegalArgumentException("scale < 0");
+        return new FixedDecimal(unscaledValue, scale);
+    }
+
+    public static FixedDecimal valueOf(long value) {
+        return new FixedDecimal(value, 0);
+    }
+
+    public static FixedDecimal valueOf(String value) {
+        return valueOf(new BigDecimal(value));
+    }
+
+    public static FixedDecimal valueOf(BigDecimal value) {
+        if (value.scale() < 0)
+            value = value.setScale(0);
+        return new FixedDecimal(value.unscaledValue().longValueExact(), value.scale());
+    }
+
+    public long unscaledValue() {
+        return unscaledValue;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaledValue, scale);
+    }
+
+    FixedDecimal negateExact() {
+        return new FixedDecimal(Math.negateExact(unscaledValue), scale);
+    }
+
+    FixedDecimal addExact(FixedDecimal other) {
+        var scale = Math.max(this.scale, other.scale);
+        return new FixedDecimal(Math.addExact(rescale(scale), other.rescale(scale)), scale);
+    }
+
+    FixedDecimal subtractExact(FixedDecimal other) {
+        var scale = Math.max(this.scale, other.scale);
+        return new FixedDecimal(Math.subtractExact(rescale(scale), other.rescale(scale)), scale);
+    }
+
+    FixedDecimal multiplyExact(FixedDecimal other) {
+        var scale = Math.max(this.scale, other.scale);
+        return new FixedDecimal(Math.multiplyExact(rescale(scale), other.rescale(scale)), scale + scale);
+    }
+
+    private long rescale(int scale) {
+        if (scale == this.scale)
+            return unscaledValue;
+        var difference = scale - this.scale;
+        if (difference >= POWERS_OF_TEN.length)
+            throw new ArithmeticException("scale out of range");
+        return Math.multiplyExact(unscaledValue, POWERS_OF_TEN[difference]);
+    }
+
+    @Override
+    public int compareTo(FixedDecimal other) {
+        if (scale == other.scale)
+            return Long.compare(unscaledValue, other.unscaledValue);
+        try {
+            var scale = Math.max(this.scale, other.scale);
+            return Long.compare(rescale(scale), other.rescale(scale));
+        } catch (ArithmeticException overflow) {
+            return toBigDecimal().compareTo(other.toBigDecimal());
+        }
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public long longValue() {
+        return scale < POWERS_OF_TEN.length
+                ? unscaledValue / POWERS_OF_TEN[scale]
+                : toBigDecimal().longValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        return scale < POWERS_OF_TEN.length && -MAX_EXACT_DOUBLE <= unscaledValue && unscaledValue <= MAX_EXACT_DOUBLE
+                ? unscaledValue / (double) POWERS_OF_TEN[scale]
+                : toBigDecimal().doubleValue();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FixedDecimal fixedDecimal
+                && unscaledValue == fixedDecimal.unscaledValue
+                && scale == fixedDecimal.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(unscaledValue) + scale;
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toString();
+    }
+}
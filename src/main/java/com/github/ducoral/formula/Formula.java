@@ -1,11 +1,17 @@
 package com.github.ducoral.formula;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -16,24 +22,54 @@ import static com.github.ducoral.formula.Utils.rightAlign;
 
 public class Formula {
 
-    final Map<String, Function<Parameters, Object>> functions;
+    final Map<String, FunctionDefinition> functions;
 
     final List<Operation> unaryOperations;
 
     final List<Operation> binaryOperations;
 
+    final OperationTable unaryOperationTable;
+
+    final OperationTable binaryOperationTable;
+
     final OperatorParser operatorParser;
 
     final OperatorPrecedence operatorPrecedence;
 
+    final ParseCache parseCache;
+
+    final boolean optimize;
+
+    final NumericMode numericMode;
+
+    final MathContext mathContext;
+
+    final Engine engine;
+
+    final Coercions coercions;
+
+    final Engine tieredEngine;
+
+    final int tieredThreshold;
+
+    final Executor tieredExecutor;
+
+    final AtomicLong promotedCount = new AtomicLong();
+
+    final AtomicLong failedPromotionCount = new AtomicLong();
+
     public static Builder builder() {
         return new Builder();
     }
 
     Formula(Builder builder) {
-        functions = builder.functions;
-        unaryOperations = builder.unaryOperations;
-        binaryOperations = builder.binaryOperations;
+        functions = Map.copyOf(builder.functions);
+        numericMode = builder.numericMode;
+        mathContext = builder.mathContext;
+        unaryOperations = OperationsNumber.forMode(builder.unaryOperations, numericMode, mathContext);
+        binaryOperations = OperationsNumber.forMode(builder.binaryOperations, numericMode, mathContext);
+        unaryOperationTable = new OperationTable(unaryOperations);
+        binaryOperationTable = new OperationTable(binaryOperations);
 
         var operators = new HashSet<String>();
         unaryOperations.forEach(operation -> operators.add(operation.operator().lexeme()));
@@ -41,6 +77,19 @@ public class Formula {
         operatorParser = new OperatorParser(operators);
 
         operatorPrecedence = new OperatorPrecedence(binaryOperations);
+
+        parseCache = builder.parseCacheMaxEntries > 0
+                ? new ParseCache(builder.parseCacheMaxEntries)
+                : null;
+
+        optimize = builder.optimize;
+        engine = builder.engine;
+        coercions = builder.coercions.isEmpty()
+                ? Coercions.DEFAULT
+                : new Coercions(builder.coercions);
+        tieredEngine = builder.tieredEngine;
+        tieredThreshold = builder.tieredThreshold;
+        tieredExecutor = builder.tieredExecutor;
     }
 
     public Result<Expression> parse(String input) {
@@ -49,9 +98,29 @@ public class Formula {
         if (input.isEmpty())
             return Result.ofValue(new Expression.Empty(Position.NULL));
 
+        return parseCache == null
+                ? parseInput(input)
+                : parseCache.get(input, this::parseInput);
+    }
+
+    public ParseCacheStats parseCacheStats() {
+        return parseCache == null
+                ? ParseCacheStats.DISABLED
+                : parseCache.stats();
+    }
+
+    public long promotedCount() {
+        return promotedCount.get();
+    }
+
+    public long failedPromotionCount() {
+        return failedPromotionCount.get();
+    }
+
+    private Result<Expression> parseInput(String input) {
         try {
-            var tokenizer = new Tokenizer(new CharReader(input), operatorParser, operatorPrecedence);
-            var expression = new ExpressionParser(tokenizer, operatorPrecedence)
+            var tokenizer = new Tokenizer(input, operatorParser, operatorPrecedence);
+            var expression = new ExpressionParser(tokenizer, numericMode, mathContext)
                     .parse();
             return Result.ofValue(expression);
         } catch (FormulaException exception) {
@@ -59,12 +128,44 @@ public class Formula {
         }
     }
 
+    public Result<CompiledFormula> compile(String input) {
+        assert input != null;
+
+        var expression = expression(input);
+        if (!expression.isOK())
+            return Result.ofInvalid(expression);
+
+        return Result.ofValue(new CompiledFormula(this, input, expression.value()));
+    }
+
+    Result<Expression> expression(String input) {
+        var parseResult = parse(input);
+        if (!parseResult.isOK() || !optimize)
+            return parseResult;
+
+        return Result.ofValue(ConstantFolder.fold(this, parseResult.value()));
+    }
+
+    public CompiledFormula load(Program program) {
+        assert program != null;
+
+        ProgramVerifier.verify(this, program);
+        return new CompiledFormula(this, program);
+    }
+
     public Result<Value> evaluate(String input) {
         return evaluate(input, Map.of());
     }
 
     public Result<Value> evaluate(String input, Map<String, Object> scope) {
+        assert scope != null;
+
+        return evaluate(input, Scope.of(scope));
+    }
+
+    public Result<Value> evaluate(String input, Scope scope) {
         assert input != null;
+        assert scope != null;
 
         if (input.isEmpty())
             return Result.ofValue(new Value(null));
@@ -91,7 +192,13 @@ public class Formula {
         if (!parseResult.isOK())
             return Result.ofInvalid(parseResult);
 
-        var expression = parseResult.value();
+        return Result.ofValue(explain(parseResult.value()));
+    }
+
+    static String explain(Expression expression) {
+        if (expression instanceof Expression.Empty)
+            return "";
+
         var asStr = ExpressionAsStringVisitor.asString(expression);
         var asTextTree = ExpressionAsTextTreeVisitor.asTextTree(expression).split("\\n");
         int linesWidth = String.valueOf(asTextTree.length).length();
@@ -111,12 +218,14 @@ public class Formula {
                     .append("| ")
                     .append(asTextTree[line]);
 
-        return Result.ofValue(builder.toString());
+        return builder.toString();
     }
 
     public static class Builder {
 
-        final Map<String, Function<Parameters, Object>> functions = new HashMap<>();
+        final Map<String, FunctionDefinition> functions = new HashMap<>();
+
+        final Map<Class<?>, Coercions.Coercion> coercions = new HashMap<>();
 
         final List<Operation> unaryOperations = new ArrayList<>();
 
@@ -124,11 +233,69 @@ public class Formula {
 
         final AtomicReference<RoundingMode> roundingModeReference = new AtomicReference<>(RoundingMode.HALF_UP);
 
+        NumericMode numericMode = NumericMode.EXACT;
+
+        MathContext mathContext = MathContext.DECIMAL64;
+
+        int parseCacheMaxEntries = 0;
+
+        boolean optimize = true;
+
+        Engine engine = Engine.INTERPRETER;
+
+        Engine tieredEngine = null;
+
+        int tieredThreshold = 0;
+
+        Executor tieredExecutor = ForkJoinPool.commonPool();
+
         public Builder roudingMode(RoundingMode roundingMode) {
             roundingModeReference.set(roundingMode);
             return this;
         }
 
+        public Builder numericMode(NumericMode numericMode) {
+            this.numericMode = numericMode;
+            return this;
+        }
+
+        public Builder mathContext(MathContext mathContext) {
+            this.mathContext = mathContext;
+            return this;
+        }
+
+        public Builder parseCache(int maxEntries) {
+            if (maxEntries < 0)
+                throw new IllegalArgumentException("maxEntries < 0");
+            parseCacheMaxEntries = maxEntries;
+            return this;
+        }
+
+        public Builder optimize(boolean optimize) {
+            this.optimize = optimize;
+            return this;
+        }
+
+        public Builder engine(Engine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        public Builder tiered(Engine engine, int threshold) {
+            if (engine == Engine.INTERPRETER)
+                throw new IllegalArgumentException("engine == INTERPRETER");
+            if (threshold <= 0)
+                throw new IllegalArgumentException("threshold <= 0");
+            tieredEngine = engine;
+            tieredThreshold = threshold;
+            return this;
+        }
+
+        public Builder tieredExecutor(Executor executor) {
+            tieredExecutor = executor;
+            return this;
+        }
+
         public Builder unaryOperation(Operation operation) {
             unaryOperations.add(operation);
             return this;
@@ -140,7 +307,16 @@ public class Formula {
         }
 
         public Builder function(FunctionDefinition function) {
-            functions.put(function.name(), function.function());
+            functions.put(function.name(), function);
+            return this;
+        }
+
+        public <T> Builder coercion(
+                Class<T> type,
+                Function<? super T, BigInteger> toBigInteger,
+                Function<? super T, BigDecimal> toBigDecimal) {
+
+            coercions.put(type, Coercions.coercion(type, toBigInteger, toBigDecimal));
             return this;
         }
 
@@ -0,0 +1,77 @@
+package com.github.ducoral.formula;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+final class Frame {
+
+    private static final Object NOT_EVALUATED = new Object();
+
+    private final CompiledCode code;
+
+    private final Scope scope;
+
+    private final Object[] variables;
+
+    private final Object[] slots;
+
+    Frame(CompiledCode code, Scope scope, Object[] variables, int slotCount) {
+        this.code = code;
+        this.scope = scope;
+        this.variables = variables;
+        this.slots = new Object[slotCount];
+        Arrays.fill(slots, NOT_EVALUATED);
+    }
+
+    Object run(int entry) {
+        return code.run(entry, this);
+    }
+
+    Object variable(int index, String name) {
+        return variables == null
+                ? scope.get(name)
+                : variables[index];
+    }
+
+    boolean hasLong(int index, String name) {
+        return variables == null
+                ? scope.hasLong(name)
+                : variables[index] instanceof Long;
+    }
+
+    long longVariable(int index, String name) {
+        return variables == null
+                ? scope.getLong(name)
+                : (Long) variables[index];
+    }
+
+    Object memo(int slot, int entry) {
+        var value = slots[slot];
+        if (value == NOT_EVALUATED) {
+            value = run(entry);
+            slots[slot] = value;
+        }
+        return value;
+    }
+
+    boolean isEvaluated(int slot) {
+        return slots[slot] != NOT_EVALUATED;
+    }
+
+    Object slot(int slot) {
+        return slots[slot];
+    }
+
+    void store(int slot, Object value) {
+        slots[slot] = value;
+    }
+
+    Object memo(int slot, Function<Frame, Object> evaluation) {
+        var value = slots[slot];
+        if (value == NOT_EVALUATED) {
+            value = evaluation.apply(this);
+            slots[slot] = value;
+        }
+        return value;
+    }
+}
@@ -2,5 +2,13 @@ package com.github.ducoral.formula;
 
 import java.util.function.Function;
 
-public record FunctionDefinition(String name, Function<Parameters, Object> function) {
+public record FunctionDefinition(String name, Function<Parameters, Object> function, boolean pure) {
+
+    public FunctionDefinition(String name, Function<Parameters, Object> function) {
+        this(name, function, false);
+    }
+
+    public static FunctionDefinition pure(String name, Function<Parameters, Object> function) {
+        return new FunctionDefinition(name, function, true);
+    }
 }
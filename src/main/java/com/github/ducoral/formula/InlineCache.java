@@ -0,0 +1,41 @@
+package com.github.ducoral.formula;
+
+class InlineCache {
+
+    static final int SIZE = 4;
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private final OperationTable operationTable;
+
+    private final String operator;
+
+    private volatile Entry[] entries = EMPTY;
+
+    InlineCache(OperationTable operationTable, String operator) {
+        this.operationTable = operationTable;
+        this.operator = operator;
+    }
+
+    Operation[] operations(Class<?> type) {
+        var current = entries;
+        for (var entry : current)
+            if (entry.type == type)
+                return entry.operations;
+
+        var operations = operationTable.operations(type, operator);
+        if (type != null)
+            entries = prepend(current, new Entry(type, operations));
+        return operations;
+    }
+
+    private static Entry[] prepend(Entry[] current, Entry entry) {
+        var updated = new Entry[Math.min(current.length + 1, SIZE)];
+        updated[0] = entry;
+        System.arraycopy(current, 0, updated, 1, updated.length - 1);
+        return updated;
+    }
+
+    private record Entry(Class<?> type, Operation[] operations) {
+    }
+}
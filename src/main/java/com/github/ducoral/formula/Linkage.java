@@ -0,0 +1,95 @@
+package com.github.ducoral.formula;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.ducoral.formula.Expression.BinaryOperation;
+import static com.github.ducoral.formula.Expression.FunctionCall;
+import static com.github.ducoral.formula.Expression.Identifier;
+import static com.github.ducoral.formula.Expression.UnaryOperation;
+
+class Linkage {
+
+    static final Linkage NONE = new Linkage(Map.of(), 0, List.of(), Map.of());
+
+    private final Map<Expression, Site> sites;
+
+    private final int slotCount;
+
+    private final Map<String, Integer> variableIndexes;
+
+    private final List<String> variables;
+
+    private Linkage(Map<Expression, Site> sites, int slotCount, List<String> variables, Map<String, Integer> variableIndexes) {
+        this.sites = sites;
+        this.slotCount = slotCount;
+        this.variables = List.copyOf(variables);
+        this.variableIndexes = variableIndexes;
+    }
+
+    static Linkage of(Formula formula, Expression expression) {
+        var slots = CommonSubexpressions.slots(formula, expression);
+        var sites = new IdentityHashMap<Expression, Site>();
+        var variables = new ArrayList<String>();
+        var variableIndexes = new HashMap<String, Integer>();
+        expression.accept(new ExpressionWalker() {
+            @Override
+            public void visit(Identifier identifier) {
+                var variable = variableIndexes.computeIfAbsent(identifier.name(), name -> {
+                    variables.add(name);
+                    return variables.size() - 1;
+                });
+                sites.put(identifier, new Site(null, Site.NO_SLOT, variable));
+            }
+
+            @Override
+            public void visit(UnaryOperation unaryOperation) {
+                var inlineCache = new InlineCache(formula.unaryOperationTable, unaryOperation.operator());
+                sites.put(unaryOperation, new Site(inlineCache, slots.getOrDefault(unaryOperation, Site.NO_SLOT)));
+                super.visit(unaryOperation);
+            }
+
+            @Override
+            public void visit(BinaryOperation binaryOperation) {
+                var inlineCache = new InlineCache(formula.binaryOperationTable, binaryOperation.operator());
+                sites.put(binaryOperation, new Site(inlineCache, slots.getOrDefault(binaryOperation, Site.NO_SLOT)));
+                super.visit(binaryOperation);
+            }
+
+            @Override
+            public void visit(FunctionCall functionCall) {
+                if (slots.containsKey(functionCall))
+                    sites.put(functionCall, new Site(null, slots.get(functionCall)));
+                super.visit(functionCall);
+            }
+        });
+        var slotCount = slots.values().stream().mapToInt(slot -> slot + 1).max().orElse(0);
+        return new Linkage(sites, slotCount, variables, variableIndexes);
+    }
+
+    static Linkage of(List<String> variables, int slotCount) {
+        var variableIndexes = new HashMap<String, Integer>();
+        for (int index = 0; index < variables.size(); index++)
+            variableIndexes.put(variables.get(index), index);
+        return new Linkage(Map.of(), slotCount, variables, variableIndexes);
+    }
+
+    Site site(Expression expression) {
+        return sites.get(expression);
+    }
+
+    int slotCount() {
+        return slotCount;
+    }
+
+    List<String> variables() {
+        return variables;
+    }
+
+    int variableIndex(String name) {
+        return variableIndexes.getOrDefault(name, Site.NO_VARIABLE);
+    }
+}
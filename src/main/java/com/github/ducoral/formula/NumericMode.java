@@ -0,0 +1,10 @@
+package com.github.ducoral.formula;
+
+public enum NumericMode {
+
+    EXACT,
+
+    DOUBLE,
+
+    DECIMAL64
+}
@@ -13,6 +13,10 @@ public class Operands {
 
     private final Function<Operands, String> toString;
 
+    private Value leftValue;
+
+    private Value rightValue;
+
     Operands(Position position, Supplier<Value> left, Supplier<Value> right, Function<Operands, String> toString) {
         this.position = position;
         this.left = left;
@@ -28,11 +32,15 @@ public class Operands {
     }
 
     public Value left() {
-        return left.get();
+        if (leftValue == null)
+            leftValue = left.get();
+        return leftValue;
     }
 
     public Value right() {
-        return right.get();
+        if (rightValue == null)
+            rightValue = right.get();
+        return rightValue;
     }
 
     public Position position() {
@@ -1,6 +1,18 @@
 package com.github.ducoral.formula;
 
-public record Operation(Class<?> type, Operator operator, OperationAction action) implements Comparable<Operation> {
+public record Operation(Class<?> type, Operator operator, OperationAction action, boolean eager, boolean pure) implements Comparable<Operation> {
+
+    public Operation(Class<?> type, Operator operator, OperationAction action) {
+        this(type, operator, action, false, false);
+    }
+
+    public static Operation eager(Class<?> type, Operator operator, OperationAction action) {
+        return new Operation(type, operator, action, true, false);
+    }
+
+    public static Operation pure(Class<?> type, Operator operator, OperationAction action) {
+        return new Operation(type, operator, action, false, true);
+    }
 
     boolean supports(Class<?> type, String operator) {
         return this.operator.lexeme().equals(operator)
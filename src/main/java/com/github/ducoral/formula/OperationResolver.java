@@ -1,31 +1,55 @@
 package com.github.ducoral.formula;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.github.ducoral.formula.FormulaExceptionType.OPERATION_NOT_SUPPORTED;
 
 class OperationResolver implements OperationChain {
 
-    private final List<Operation> operations;
+    private static final OperationChain EXHAUSTED = operands -> {
+        throw new FormulaException(OPERATION_NOT_SUPPORTED, operands.position(), operands);
+    };
+
+    private final Operation[] operations;
 
     private int chainIndex;
 
-    OperationResolver(List<Operation> operations, Class<?> type, String operator) {
-        this.operations = operations
+    OperationResolver(Operation[] operations) {
+        this.operations = operations;
+        this.chainIndex = 0;
+    }
+
+    boolean isLazy() {
+        return isLazy(operations);
+    }
+
+    static boolean isLazy(Operation[] operations) {
+        for (var operation : operations)
+            if (!operation.eager())
+                return true;
+        return false;
+    }
+
+    static Object chain(Operation[] operations, Operands operands) {
+        return operations.length == 1
+                ? operations[0].action().apply(operands, EXHAUSTED)
+                : new OperationResolver(operations).chain(operands);
+    }
+
+    static Operation[] resolve(List<Operation> operations, Class<?> type, String operator) {
+        return operations
                 .stream()
                 .filter(operation -> operation.supports(type, operator))
                 .sorted(Operation::compareTo)
-                .collect(Collectors.toList());
-        this.chainIndex = 0;
+                .toArray(Operation[]::new);
     }
 
     @Override
     public Object chain(Operands operands) {
-        if (chainIndex == operations.size())
+        if (chainIndex == operations.length)
             throw new FormulaException(OPERATION_NOT_SUPPORTED, operands.position(), operands);
 
-        var operation = operations.get(chainIndex++);
+        var operation = operations[chainIndex++];
 
         return operation.action().apply(operands, this);
     }
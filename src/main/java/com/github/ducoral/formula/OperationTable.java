@@ -0,0 +1,65 @@
+package com.github.ducoral.formula;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class OperationTable {
+
+    private static final Operation[] NONE = new Operation[0];
+
+    private final Map<String, ClassValue<Operation[]>> operators = new HashMap<>();
+
+    private final Set<String> lazyOperators = new HashSet<>();
+
+    private final Set<String> impureOperators = new HashSet<>();
+
+    OperationTable(List<Operation> operations) {
+        var operationsByOperator = new HashMap<String, List<Operation>>();
+
+        operations
+                .forEach(operation -> operationsByOperator
+                        .computeIfAbsent(operation.operator().lexeme(), lexeme -> new ArrayList<>())
+                        .add(operation));
+
+        operations
+                .stream()
+                .filter(operation -> !operation.eager())
+                .forEach(operation -> lazyOperators.add(operation.operator().lexeme()));
+
+        operations
+                .stream()
+                .filter(operation -> !operation.pure())
+                .forEach(operation -> impureOperators.add(operation.operator().lexeme()));
+
+        operationsByOperator
+                .forEach((operator, candidates) -> operators.put(operator, new ClassValue<>() {
+                    @Override
+                    protected Operation[] computeValue(Class<?> type) {
+                        return OperationResolver.resolve(candidates, type, operator);
+                    }
+                }));
+    }
+
+    Operation[] operations(Class<?> type, String operator) {
+        if (type == null)
+            return NONE;
+        var table = operators.get(operator);
+        return table == null ? NONE : table.get(type);
+    }
+
+    boolean defines(String operator) {
+        return operators.containsKey(operator);
+    }
+
+    boolean isLazy(String operator) {
+        return lazyOperators.contains(operator);
+    }
+
+    boolean isPure(String operator) {
+        return !impureOperators.contains(operator);
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.ducoral.formula;
 
 import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
 import static com.github.ducoral.formula.Formula.Builder;
@@ -12,14 +13,14 @@ class OperationsLogical implements Consumer<Builder> {
     @Override
     public void accept(Builder builder) {
         builder
-                .binaryOperation(operation(AND, (left, right) -> left && right))
-                .binaryOperation(operation(OR, (left, right) -> left || right));
+                .binaryOperation(operation(AND, (left, right) -> left && right.getAsBoolean()))
+                .binaryOperation(operation(OR, (left, right) -> left || right.getAsBoolean()));
     }
 
-    private static Operation operation(Operator operator, BiFunction<Boolean, Boolean, Boolean> action) {
-        return new Operation(
+    private static Operation operation(Operator operator, BiFunction<Boolean, BooleanSupplier, Boolean> action) {
+        return Operation.pure(
                 Object.class,
                 operator,
-                (operands, chain) -> action.apply(operands.left().isTruthful(), operands.right().isTruthful()));
+                (operands, chain) -> action.apply(operands.left().isTruthful(), () -> operands.right().isTruthful()));
     }
-}
\ No newline at end of file
+}
@@ -2,10 +2,19 @@ package com.github.ducoral.formula;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.List;
 import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import static com.github.ducoral.formula.Formula.Builder;
 import static com.github.ducoral.formula.FormulaDefaults.ASTERISK;
@@ -18,6 +27,7 @@ import static com.github.ducoral.formula.FormulaDefaults.MINUS;
 import static com.github.ducoral.formula.FormulaDefaults.NOT_EQUAL;
 import static com.github.ducoral.formula.FormulaDefaults.PLUS;
 import static com.github.ducoral.formula.FormulaDefaults.SLASH;
+import static com.github.ducoral.formula.TypeSpecialization.LongInstruction;
 import static java.math.RoundingMode.UNNECESSARY;
 
 class OperationsNumber implements Consumer<Builder> {
@@ -25,44 +35,166 @@ class OperationsNumber implements Consumer<Builder> {
     @Override
     public void accept(Builder builder) {
         builder
-                .unaryOperation(operation(MINUS, operateUnary(BigInteger::negate, BigDecimal::negate)))
-                .binaryOperation(operation(PLUS, operateBinary(BigInteger::add, BigDecimal::add)))
-                .binaryOperation(operation(MINUS, operateBinary(BigInteger::subtract, BigDecimal::subtract)))
-                .binaryOperation(operation(ASTERISK, operateBinary(BigInteger::multiply, BigDecimal::multiply)))
-                .binaryOperation(operation(SLASH,
-                        operateBinary(BigInteger::divide, (left, right) ->
-                                left.divide(right, builder.roundingModeReference.get()))))
-                .binaryOperation(operation(EQUAL, operateCompareTo(result -> result == 0)))
-                .binaryOperation(operation(NOT_EQUAL, operateCompareTo(result -> result != 0)))
-                .binaryOperation(operation(GREATER_THAN, operateCompareTo(result -> result > 0)))
-                .binaryOperation(operation(GREATER_THAN_OR_EQUAL, operateCompareTo(result -> result > 0 || result == 0)))
-                .binaryOperation(operation(LESS_THAN, operateCompareTo(result -> result < 0)))
-                .binaryOperation(operation(LESS_THAN_OR_EQUAL, operateCompareTo(result -> result < 0 || result == 0)));
+                .unaryOperation(operation(MINUS, unaryByMode(
+                        LongInstruction.NEGATE,
+                        Math::negateExact,
+                        operateUnary(Math::negateExact, FixedDecimal::negateExact, BigInteger::negate, BigDecimal::negate),
+                        operateDoubleUnary(right -> -right),
+                        BigDecimal::negate)))
+                .binaryOperation(operation(PLUS, binaryByMode(
+                        LongInstruction.ADD,
+                        Math::addExact,
+                        operateBinary(Math::addExact, FixedDecimal::addExact, BigInteger::add, BigDecimal::add),
+                        operateDouble(Double::sum),
+                        BigDecimal::add)))
+                .binaryOperation(operation(MINUS, binaryByMode(
+                        LongInstruction.SUBTRACT,
+                        Math::subtractExact,
+                        operateBinary(Math::subtractExact, FixedDecimal::subtractExact, BigInteger::subtract, BigDecimal::subtract),
+                        operateDouble((left, right) -> left - right),
+                        BigDecimal::subtract)))
+                .binaryOperation(operation(ASTERISK, binaryByMode(
+                        LongInstruction.MULTIPLY,
+                        Math::multiplyExact,
+                        operateBinary(Math::multiplyExact, FixedDecimal::multiplyExact, BigInteger::multiply, BigDecimal::multiply),
+                        operateDouble((left, right) -> left * right),
+                        BigDecimal::multiply)))
+                .binaryOperation(operation(SLASH, binaryByMode(
+                        LongInstruction.NONE,
+                        OperationsNumber::divideExact,
+                        operateBinary(OperationsNumber::divideExact, null, BigInteger::divide, (left, right) ->
+                                left.divide(right, builder.roundingModeReference.get())),
+                        operateDouble((left, right) -> left / right),
+                        BigDecimal::divide)))
+                .binaryOperation(operation(EQUAL, compareByMode(LongInstruction.EQUAL, result -> result == 0, (left, right) -> left == right)))
+                .binaryOperation(operation(NOT_EQUAL, compareByMode(LongInstruction.NOT_EQUAL, result -> result != 0, (left, right) -> left != right)))
+                .binaryOperation(operation(GREATER_THAN, compareByMode(LongInstruction.GREATER_THAN, result -> result > 0, (left, right) -> left > right)))
+                .binaryOperation(operation(GREATER_THAN_OR_EQUAL, compareByMode(LongInstruction.GREATER_THAN_OR_EQUAL, result -> result > 0 || result == 0, (left, right) -> left >= right)))
+                .binaryOperation(operation(LESS_THAN, compareByMode(LongInstruction.LESS_THAN, result -> result < 0, (left, right) -> left < right)))
+                .binaryOperation(operation(LESS_THAN_OR_EQUAL, compareByMode(LongInstruction.LESS_THAN_OR_EQUAL, result -> result < 0 || result == 0, (left, right) -> left <= right)));
     }
 
     private static Operation operation(Operator operator, OperationAction action) {
-        return new Operation(Number.class, operator, action);
+        return new Operation(Number.class, operator, action, true, true);
+    }
+
+    static List<Operation> forMode(List<Operation> operations, NumericMode numericMode, MathContext mathContext) {
+        return operations
+                .stream()
+                .map(operation -> operation.action() instanceof ByMode byMode
+                        ? new Operation(
+                                operation.type(),
+                                operation.operator(),
+                                byMode.forMode(numericMode, mathContext),
+                                operation.eager(),
+                                operation.pure())
+                        : operation)
+                .toList();
+    }
+
+    private static OperationAction unaryByMode(
+            LongInstruction instruction,
+            LongUnaryOperator longAction,
+            OperationAction exactAction,
+            OperationAction doubleAction,
+            DecimalUnaryOperator decimalAction) {
+
+        return new ByMode(
+                exactAction,
+                doubleAction,
+                mathContext -> operateDecimalUnary(mathContext, exactAction, decimalAction),
+                action -> new UnaryLong(action, instruction, right -> {
+                    try {
+                        return BigInteger.valueOf(longAction.applyAsLong(right));
+                    } catch (ArithmeticException overflow) {
+                        return null;
+                    }
+                }));
+    }
+
+    private static OperationAction binaryByMode(
+            LongInstruction instruction,
+            LongBinaryOperator longAction,
+            OperationAction exactAction,
+            OperationAction doubleAction,
+            DecimalBinaryOperator decimalAction) {
+
+        return new ByMode(
+                exactAction,
+                doubleAction,
+                mathContext -> operateDecimal(mathContext, exactAction, decimalAction),
+                action -> new BinaryLong(action, instruction, (left, right) -> {
+                    try {
+                        return BigInteger.valueOf(longAction.applyAsLong(left, right));
+                    } catch (ArithmeticException overflow) {
+                        return null;
+                    }
+                }));
+    }
+
+    private static OperationAction compareByMode(
+            LongInstruction instruction,
+            Predicate<Integer> predicate,
+            DoubleBiPredicate doublePredicate) {
+
+        var compareTo = operateCompareTo(predicate);
+        return new ByMode(
+                compareTo,
+                operateDoubleCompare(doublePredicate),
+                mathContext -> compareTo,
+                action -> new BinaryLong(action, instruction, (left, right) -> predicate.test(Long.compare(left, right))));
     }
 
     private static OperationAction operateUnary(
+            LongUnaryOperator longAction,
+            UnaryOperator<FixedDecimal> fixedAction,
             Function<BigInteger, Object> integerAction,
             Function<BigDecimal, Object> decimalAction) {
 
-        return (operands, chainer) ->
-                operands.right().isInteger()
-                        ? integerAction.apply(operands.right().asBigInteger())
-                        : decimalAction.apply(operands.right().asBigDecimal());
+        return (operands, chainer) -> {
+            var right = operands.right();
+            if (right.isLong())
+                try {
+                    return BigInteger.valueOf(longAction.applyAsLong(right.asLong()));
+                } catch (ArithmeticException overflow) {
+                    return integerAction.apply(right.asBigInteger());
+                }
+            if (right.isFixedDecimal())
+                try {
+                    return fixedAction.apply(right.asFixedDecimal());
+                } catch (ArithmeticException overflow) {
+                    return decimalAction.apply(right.asBigDecimal());
+                }
+            return right.isInteger()
+                    ? integerAction.apply(right.asBigInteger())
+                    : decimalAction.apply(right.asBigDecimal());
+        };
     }
 
     private static OperationAction operateBinary(
+            LongBinaryOperator longAction,
+            BinaryOperator<FixedDecimal> fixedAction,
             BiFunction<BigInteger, BigInteger, Object> integerAction,
             BiFunction<BigDecimal, BigDecimal, Object> decimalAction) {
 
         return (operands, chainer) -> {
             if (operands.right().isNumber()) {
+                if (operands.left().isLong() && operands.right().isLong())
+                    try {
+                        return BigInteger.valueOf(longAction.applyAsLong(operands.left().asLong(), operands.right().asLong()));
+                    } catch (ArithmeticException overflow) {
+                        return integerAction.apply(operands.left().asBigInteger(), operands.right().asBigInteger());
+                    }
+
                 if (operands.left().isInteger() && operands.right().isInteger())
                     return integerAction.apply(operands.left().asBigInteger(), operands.right().asBigInteger());
 
+                var fixedDecimal = fixedAction != null && isFixedDecimal(operands)
+                        ? applyFixed(fixedAction, operands)
+                        : null;
+                if (fixedDecimal != null)
+                    return fixedDecimal;
+
                 var left = operands.left().asBigDecimal();
                 var right = operands.right().asBigDecimal();
                 var scale = Math.max(left.scale(), right.scale());
@@ -80,9 +212,141 @@ class OperationsNumber implements Consumer<Builder> {
             if (!operands.right().isNumber())
                 return chainer.chain(operands);
 
+            if (operands.left().isLong() && operands.right().isLong())
+                return predicate.test(Long.compare(operands.left().asLong(), operands.right().asLong()));
+
+            if (isFixedDecimal(operands))
+                return predicate.test(operands.left().asFixedDecimal().compareTo(operands.right().asFixedDecimal()));
+
             var left = operands.left().asBigDecimal();
             var right = operands.right().asBigDecimal();
             return predicate.test(left.compareTo(right));
         };
     }
-}
\ No newline at end of file
+
+    private static OperationAction operateDouble(DoubleBinaryOperator action) {
+        return (operands, chainer) -> operands.right().isNumber()
+                ? action.applyAsDouble(operands.left().asDouble(), operands.right().asDouble())
+                : chainer.chain(operands);
+    }
+
+    private static OperationAction operateDoubleUnary(DoubleUnaryOperator action) {
+        return (operands, chainer) -> action.applyAsDouble(operands.right().asDouble());
+    }
+
+    private static OperationAction operateDoubleCompare(DoubleBiPredicate predicate) {
+        return (operands, chainer) -> operands.right().isNumber()
+                ? predicate.test(operands.left().asDouble(), operands.right().asDouble())
+                : chainer.chain(operands);
+    }
+
+    private static OperationAction operateDecimal(
+            MathContext mathContext,
+            OperationAction integerAction,
+            DecimalBinaryOperator decimalAction) {
+
+        return (operands, chainer) -> {
+            if (operands.left().isDecimal() && operands.right().isNumber() || operands.right().isDecimal())
+                return decimalAction.apply(
+                        operands.left().asBigDecimal(),
+                        operands.right().asBigDecimal(),
+                        mathContext);
+            return integerAction.apply(operands, chainer);
+        };
+    }
+
+    private static OperationAction operateDecimalUnary(
+            MathContext mathContext,
+            OperationAction integerAction,
+            DecimalUnaryOperator decimalAction) {
+
+        return (operands, chainer) -> operands.right().isDecimal()
+                ? decimalAction.apply(operands.right().asBigDecimal(), mathContext)
+                : integerAction.apply(operands, chainer);
+    }
+
+    private static FixedDecimal applyFixed(BinaryOperator<FixedDecimal> fixedAction, Operands operands) {
+        try {
+            return fixedAction.apply(operands.left().asFixedDecimal(), operands.right().asFixedDecimal());
+        } catch (ArithmeticException overflow) {
+            return null;
+        }
+    }
+
+    private static boolean isFixedDecimal(Operands operands) {
+        var left = operands.left();
+        var right = operands.right();
+        return left.isFixedDecimal() && (right.isFixedDecimal() || right.isLong())
+                || right.isFixedDecimal() && left.isLong();
+    }
+
+    private static long divideExact(long left, long right) {
+        if (right == 0 || (left == Long.MIN_VALUE && right == -1))
+            throw new ArithmeticException();
+        return left / right;
+    }
+
+    private record ByMode(
+            OperationAction exactAction,
+            OperationAction doubleAction,
+            Function<MathContext, OperationAction> decimal64Action,
+            UnaryOperator<OperationAction> specialization) implements OperationAction {
+
+        @Override
+        public Object apply(Operands operands, OperationChain chainer) {
+            return exactAction.apply(operands, chainer);
+        }
+
+        OperationAction forMode(NumericMode numericMode, MathContext mathContext) {
+            return switch (numericMode) {
+                case EXACT -> specialization.apply(exactAction);
+                case DOUBLE -> doubleAction;
+                case DECIMAL64 -> specialization.apply(decimal64Action.apply(mathContext));
+            };
+        }
+    }
+
+    private record UnaryLong(OperationAction action, LongInstruction instruction, LongFunction<Object> longAction)
+            implements TypeSpecialization.UnaryLongAction {
+
+        @Override
+        public Object apply(Operands operands, OperationChain chainer) {
+            return action.apply(operands, chainer);
+        }
+
+        @Override
+        public Object applyLong(long right) {
+            return longAction.apply(right);
+        }
+    }
+
+    private record BinaryLong(OperationAction action, LongInstruction instruction, LongBiFunction longAction)
+            implements TypeSpecialization.BinaryLongAction {
+
+        @Override
+        public Object apply(Operands operands, OperationChain chainer) {
+            return action.apply(operands, chainer);
+        }
+
+        @Override
+        public Object applyLongs(long left, long right) {
+            return longAction.apply(left, right);
+        }
+    }
+
+    private interface LongBiFunction {
+        Object apply(long left, long right);
+    }
+
+    private interface DoubleBiPredicate {
+        boolean test(double left, double right);
+    }
+
+    private interface DecimalUnaryOperator {
+        BigDecimal apply(BigDecimal right, MathContext mathContext);
+    }
+
+    private interface DecimalBinaryOperator {
+        BigDecimal apply(BigDecimal left, BigDecimal right, MathContext mathContext);
+    }
+}
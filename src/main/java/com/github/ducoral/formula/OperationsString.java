@@ -33,7 +33,9 @@ class OperationsString implements Consumer<Builder> {
         return new Operation(
                 String.class,
                 operator,
-                (operands, chain) -> action.apply(operands.left().asString(), operands.right().asString()));
+                (operands, chain) -> action.apply(operands.left().asString(), operands.right().asString()),
+                true,
+                true);
     }
 
     private static BiFunction<String, String, Object> compare(Function<Integer, Boolean> resultFunction) {
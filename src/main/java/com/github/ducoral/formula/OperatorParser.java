@@ -1,58 +1,86 @@
 package com.github.ducoral.formula;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 class OperatorParser {
 
-    private final Set<String> operators;
+    private static final int ROOT = 0;
 
-    private Set<String> tokenizing = new HashSet<>();
+    static final int NONE = -1;
 
-    private int offset;
+    private final char[][] labels;
+
+    private final int[][] targets;
+
+    private final String[] operators;
 
     OperatorParser(Set<String> operators) {
-        this.operators = operators;
-        this.offset = 0;
-    }
+        var nodes = new ArrayList<TreeMap<Character, Integer>>();
+        var accepting = new ArrayList<String>();
+        nodes.add(new TreeMap<>());
+        accepting.add(null);
 
-    void reset() {
-        offset = 0;
-        tokenizing.clear();
+        for (var operator : operators) {
+            var current = ROOT;
+            for (var index = 0; index < operator.length(); index++) {
+                var next = nodes.get(current).get(operator.charAt(index));
+                if (next == null) {
+                    next = nodes.size();
+                    nodes.get(current).put(operator.charAt(index), next);
+                    nodes.add(new TreeMap<>());
+                    accepting.add(null);
+                }
+                current = next;
+            }
+            accepting.set(current, operator);
+        }
+
+        labels = new char[nodes.size()][];
+        targets = new int[nodes.size()][];
+        for (var index = 0; index < nodes.size(); index++)
+            freeze(index, nodes.get(index));
+        this.operators = accepting.toArray(String[]::new);
     }
 
     boolean isOperatorStart(char ch) {
-        return operators
-                .stream()
-                .anyMatch(op -> op.charAt(0) == ch);
+        return child(ROOT, ch) != NONE;
+    }
+
+    boolean isOperator(String lexeme) {
+        var current = ROOT;
+        for (var index = 0; index < lexeme.length() && current != NONE; index++)
+            current = child(current, lexeme.charAt(index));
+        return current != NONE && operators[current] != null;
     }
 
-    boolean isOperatorPart(char ch) {
-        return tokenizing
-                .stream()
-                .anyMatch(op -> offset < op.length() && op.charAt(offset) == ch);
+    int start(char ch) {
+        return child(ROOT, ch);
     }
 
-    boolean isOperator(String lexeme) {
-        return operators
-                .stream()
-                .anyMatch(op -> op.equals(lexeme));
+    int next(int node, char ch) {
+        return node == NONE ? NONE : child(node, ch);
+    }
+
+    String operator(int node) {
+        return node == NONE ? null : operators[node];
     }
 
-    void start(char ch) {
-        tokenizing = operators
-                .stream()
-                .filter(op -> op.charAt(0) == ch)
-                .collect(Collectors.toSet());
-        offset = 1;
+    private int child(int parent, char ch) {
+        var index = Arrays.binarySearch(labels[parent], ch);
+        return index < 0 ? NONE : targets[parent][index];
     }
 
-    void acceptPart(char ch) {
-        tokenizing = tokenizing
-                .stream()
-                .filter(op -> offset < op.length() && op.charAt(offset) == ch)
-                .collect(Collectors.toSet());
-        offset++;
+    private void freeze(int index, TreeMap<Character, Integer> children) {
+        labels[index] = new char[children.size()];
+        targets[index] = new int[children.size()];
+        var position = 0;
+        for (var entry : children.entrySet()) {
+            labels[index][position] = entry.getKey();
+            targets[index][position] = entry.getValue();
+            position++;
+        }
     }
 }
@@ -1,35 +1,31 @@
 package com.github.ducoral.formula;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 class OperatorPrecedence {
 
-    private final List<Set<String>> operators = new ArrayList<>();
+    static final int NONE = -1;
 
-    OperatorPrecedence(List<Operation> operations) {
-        var operatorsMap = new HashMap<Precedence, Set<String>>();
-
-        operations
-                .forEach(operation -> operatorsMap
-                        .computeIfAbsent(operation.operator().precedence(), precedence -> new HashSet<>())
-                        .add(operation.operator().lexeme()));
+    private final Map<String, Integer> levels = new HashMap<>();
 
-        operatorsMap
-                .keySet()
+    OperatorPrecedence(List<Operation> operations) {
+        var precedences = operations
                 .stream()
+                .map(operation -> operation.operator().precedence())
+                .distinct()
                 .sorted(Precedence::compareTo)
-                .forEach(precedence -> operators.add(operatorsMap.get(precedence)));
-    }
+                .toList();
 
-    boolean hasOperatorsWithPrecedence(int precedence) {
-        return precedence >= 0 && precedence < operators.size();
+        operations
+                .forEach(operation -> levels.merge(
+                        operation.operator().lexeme(),
+                        precedences.indexOf(operation.operator().precedence()),
+                        Math::max));
     }
 
-    Set<String> getOperatorsOfPrecedence(int precedence) {
-        return operators.get(precedence);
+    int levelOf(String operator) {
+        return levels.getOrDefault(operator, NONE);
     }
 }
@@ -2,17 +2,27 @@ package com.github.ducoral.formula;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
+import java.util.function.IntFunction;
 
 public class Parameters {
 
+    private static final Object NOT_EVALUATED = new Object();
+
+    private final Coercions coercions;
+
     private final int count;
 
-    private final Function<Integer, Value> valueFunction;
+    private final IntFunction<Object> valueFunction;
 
-    Parameters(int count, Function<Integer, Value> valueFunction) {
+    private final Object[] values;
+
+    Parameters(Coercions coercions, int count, IntFunction<Object> valueFunction) {
+        this.coercions = coercions;
         this.count = count;
         this.valueFunction = valueFunction;
+        this.values = new Object[count];
+        for (var index = 0; index < count; index++)
+            values[index] = NOT_EVALUATED;
     }
 
     public int count() {
@@ -20,15 +30,42 @@ public class Parameters {
     }
 
     public Value get(int index) {
-        if (index < 0 || index >= count)
-            throw new IndexOutOfBoundsException(index);
-        return valueFunction.apply(index);
+        return new Value(object(index), coercions);
+    }
+
+    public long getLong(int index) {
+        return coercions.toLong(object(index));
+    }
+
+    public double getDouble(int index) {
+        var object = object(index);
+        return object instanceof Number number
+                ? number.doubleValue()
+                : new Value(object, coercions).asBigDecimal().doubleValue();
+    }
+
+    public boolean getBoolean(int index) {
+        var object = object(index);
+        return object instanceof Boolean booleanValue
+                ? booleanValue
+                : new Value(object, coercions).isTruthful();
     }
 
     public List<Value> asList() {
-        var list = new ArrayList<Value>();
+        var list = new ArrayList<Value>(count);
         for (var index = 0; index < count; index++)
             list.add(get(index));
         return list;
     }
+
+    private Object object(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException(index);
+        var value = values[index];
+        if (value == NOT_EVALUATED) {
+            value = valueFunction.apply(index);
+            values[index] = value;
+        }
+        return value;
+    }
 }
@@ -0,0 +1,98 @@
+package com.github.ducoral.formula;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+class ParseCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    ParseCache(int maxEntries) {
+        assert maxEntries > 0;
+
+        var segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maxEntries)
+            segmentCount *= 2;
+
+        segments = new Segment[segmentCount];
+        var capacity = maxEntries / segmentCount;
+        var remainder = maxEntries % segmentCount;
+        for (var index = 0; index < segmentCount; index++)
+            segments[index] = new Segment(index < remainder ? capacity + 1 : capacity);
+    }
+
+    Result<Expression> get(String input, Function<String, Result<Expression>> parser) {
+        var segment = segmentOf(input);
+
+        Result<Expression> result;
+        synchronized (segment) {
+            result = segment.get(input);
+        }
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+
+        misses.increment();
+        var parsed = parser.apply(input);
+        synchronized (segment) {
+            result = segment.putIfAbsent(input, parsed);
+        }
+        return result == null ? parsed : result;
+    }
+
+    ParseCacheStats stats() {
+        var size = 0;
+        for (var segment : segments)
+            synchronized (segment) {
+                size += segment.size();
+            }
+        return new ParseCacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segmentOf(String input) {
+        var hash = input.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private class Segment {
+
+        private final Map<String, Result<Expression>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        Result<Expression> get(String input) {
+            return entries.get(input);
+        }
+
+        Result<Expression> putIfAbsent(String input, Result<Expression> result) {
+            var current = entries.putIfAbsent(input, result);
+            if (current == null && entries.size() > capacity) {
+                var eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+            return current;
+        }
+
+        int size() {
+            return entries.size();
+        }
+    }
+}
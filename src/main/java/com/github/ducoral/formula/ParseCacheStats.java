@@ -0,0 +1,15 @@
+package com.github.ducoral.formula;
+
+public record ParseCacheStats(long hits, long misses, long evictions, int size) {
+
+    public static final ParseCacheStats DISABLED = new ParseCacheStats(0, 0, 0, 0);
+
+    public long requests() {
+        return hits + misses;
+    }
+
+    public double hitRate() {
+        var requests = requests();
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.ducoral.formula;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+public final class Program implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int CONST = 1;
+
+    static final int NULL = 2;
+
+    static final int LOAD = 3;
+
+    static final int UNARY = 4;
+
+    static final int BINARY = 5;
+
+    static final int APPLY = 6;
+
+    static final int CALL = 7;
+
+    static final int MEMO = 8;
+
+    static final int STORE = 9;
+
+    static final int UNARY_SITE = 0;
+
+    static final int BINARY_SITE = 1;
+
+    final String input;
+
+    final int[] code;
+
+    final Object[] constants;
+
+    final int[] sites;
+
+    final int[] positions;
+
+    final String[] variables;
+
+    final int slotCount;
+
+    final int maxStack;
+
+    Program(String input, int[] code, Object[] constants, int[] sites, int[] positions, String[] variables, int slotCount, int maxStack) {
+        this.input = input;
+        this.code = code;
+        this.constants = constants;
+        this.sites = sites;
+        this.positions = positions;
+        this.variables = variables;
+        this.slotCount = slotCount;
+        this.maxStack = maxStack;
+    }
+
+    boolean sameCode(Program other) {
+        return Arrays.equals(code, other.code)
+                && Arrays.equals(constants, other.constants)
+                && Arrays.equals(sites, other.sites)
+                && Arrays.equals(positions, other.positions)
+                && Arrays.equals(variables, other.variables)
+                && slotCount == other.slotCount;
+    }
+
+    public String input() {
+        return input;
+    }
+
+    public List<String> variables() {
+        return List.of(variables);
+    }
+}
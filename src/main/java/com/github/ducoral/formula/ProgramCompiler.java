@@ -0,0 +1,201 @@
+package com.github.ducoral.formula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.ducoral.formula.Expression.BinaryOperation;
+import static com.github.ducoral.formula.Expression.Empty;
+import static com.github.ducoral.formula.Expression.FunctionCall;
+import static com.github.ducoral.formula.Expression.Identifier;
+import static com.github.ducoral.formula.Expression.NumberLiteral;
+import static com.github.ducoral.formula.Expression.StringLiteral;
+import static com.github.ducoral.formula.Expression.UnaryOperation;
+import static com.github.ducoral.formula.Expression.Visitor;
+import static com.github.ducoral.formula.Program.APPLY;
+import static com.github.ducoral.formula.Program.BINARY;
+import static com.github.ducoral.formula.Program.BINARY_SITE;
+import static com.github.ducoral.formula.Program.CALL;
+import static com.github.ducoral.formula.Program.CONST;
+import static com.github.ducoral.formula.Program.LOAD;
+import static com.github.ducoral.formula.Program.MEMO;
+import static com.github.ducoral.formula.Program.NULL;
+import static com.github.ducoral.formula.Program.STORE;
+import static com.github.ducoral.formula.Program.UNARY;
+import static com.github.ducoral.formula.Program.UNARY_SITE;
+
+class ProgramCompiler implements Visitor {
+
+    private final Linkage linkage;
+
+    private int[] code = new int[32];
+
+    private int length;
+
+    private final List<Object> constants = new ArrayList<>();
+
+    private final Map<Object, Integer> stringIndexes = new HashMap<>();
+
+    private final Map<Object, Integer> valueIndexes = new IdentityHashMap<>();
+
+    private final List<Integer> sites = new ArrayList<>();
+
+    private final List<Integer> positions = new ArrayList<>();
+
+    private final Map<Position, Integer> positionIndexes = new HashMap<>();
+
+    private int depth;
+
+    private int maxStack;
+
+    private ProgramCompiler(Linkage linkage) {
+        this.linkage = linkage;
+    }
+
+    static Program compile(String input, Expression expression, Linkage linkage) {
+        var compiler = new ProgramCompiler(linkage);
+        compiler.emit(expression);
+        return new Program(
+                input,
+                Arrays.copyOf(compiler.code, compiler.length),
+                compiler.constants.toArray(),
+                compiler.sites.stream().mapToInt(Integer::intValue).toArray(),
+                compiler.positions.stream().mapToInt(Integer::intValue).toArray(),
+                linkage.variables().toArray(String[]::new),
+                linkage.slotCount(),
+                compiler.maxStack);
+    }
+
+    private void emit(Expression expression) {
+        var site = linkage.site(expression);
+        if (site != null && site.hasSlot()) {
+            put(MEMO, site.slot());
+            var end = reserve();
+            emitBody(expression);
+            put(STORE, site.slot());
+            patch(end);
+        } else
+            emitBody(expression);
+    }
+
+    private void emitBody(Expression expression) {
+        if (expression instanceof Empty) {
+            put(NULL);
+            push(1);
+        } else
+            expression.accept(this);
+    }
+
+    private void emitBlock(Expression expression) {
+        var outer = depth;
+        emit(expression);
+        depth = outer;
+    }
+
+    @Override
+    public void visit(NumberLiteral numberLiteral) {
+        put(CONST, value(numberLiteral.value()));
+        push(1);
+    }
+
+    @Override
+    public void visit(StringLiteral stringLiteral) {
+        put(CONST, string(stringLiteral.value()));
+        push(1);
+    }
+
+    @Override
+    public void visit(Identifier identifier) {
+        put(LOAD, linkage.site(identifier).variable(), string(identifier.name()));
+        push(1);
+    }
+
+    @Override
+    public void visit(UnaryOperation unaryOperation) {
+        emit(unaryOperation.right());
+        put(UNARY, site(UNARY_SITE, unaryOperation.operator(), unaryOperation.position()));
+    }
+
+    @Override
+    public void visit(BinaryOperation binaryOperation) {
+        emit(binaryOperation.left());
+        var site = site(BINARY_SITE, binaryOperation.operator(), binaryOperation.position());
+        put(BINARY, site);
+        var end = reserve();
+        push(1);
+        emit(binaryOperation.right());
+        patch(end);
+        put(APPLY, site);
+        push(-2);
+    }
+
+    @Override
+    public void visit(FunctionCall functionCall) {
+        var parameters = functionCall.parameters();
+        put(CALL, string(functionCall.name()), position(functionCall.position()), parameters.size());
+        var header = length;
+        for (int index = 0; index < parameters.size(); index++)
+            put(0, 0);
+        for (int index = 0; index < parameters.size(); index++) {
+            code[header + 2 * index] = length;
+            emitBlock(parameters.get(index));
+            code[header + 2 * index + 1] = length;
+        }
+        push(1);
+    }
+
+    private int site(int kind, String operator, Position position) {
+        sites.add(kind);
+        sites.add(string(operator));
+        sites.add(position(position));
+        return sites.size() / 3 - 1;
+    }
+
+    private int position(Position position) {
+        return positionIndexes.computeIfAbsent(position, key -> {
+            positions.add(key.index());
+            positions.add(key.line());
+            positions.add(key.column());
+            return positions.size() / 3 - 1;
+        });
+    }
+
+    private int string(String value) {
+        return stringIndexes.computeIfAbsent(value, this::constant);
+    }
+
+    private int value(Object value) {
+        return value instanceof String string
+                ? string(string)
+                : valueIndexes.computeIfAbsent(value, this::constant);
+    }
+
+    private int constant(Object value) {
+        constants.add(value);
+        return constants.size() - 1;
+    }
+
+    private void push(int count) {
+        depth += count;
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    private int reserve() {
+        put(0);
+        return length - 1;
+    }
+
+    private void patch(int position) {
+        code[position] = length;
+    }
+
+    private void put(int... values) {
+        if (length + values.length > code.length)
+            code = Arrays.copyOf(code, Math.max(code.length * 2, length + values.length));
+        System.arraycopy(values, 0, code, length, values.length);
+        length += values.length;
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.ducoral.formula;
+
+import static com.github.ducoral.formula.Program.APPLY;
+import static com.github.ducoral.formula.Program.BINARY;
+import static com.github.ducoral.formula.Program.BINARY_SITE;
+import static com.github.ducoral.formula.Program.CALL;
+import static com.github.ducoral.formula.Program.CONST;
+import static com.github.ducoral.formula.Program.LOAD;
+import static com.github.ducoral.formula.Program.MEMO;
+import static com.github.ducoral.formula.Program.NULL;
+import static com.github.ducoral.formula.Program.STORE;
+import static com.github.ducoral.formula.Program.UNARY;
+import static com.github.ducoral.formula.Program.UNARY_SITE;
+
+final class ProgramVerifier {
+
+    private final Formula formula;
+
+    private final Program program;
+
+    private final int[] code;
+
+    private int maxDepth;
+
+    private ProgramVerifier(Formula formula, Program program) {
+        this.formula = formula;
+        this.program = program;
+        this.code = program.code;
+    }
+
+    static void verify(Formula formula, Program program) {
+        check(program.code != null
+                && program.constants != null
+                && program.sites != null
+                && program.positions != null
+                && program.variables != null
+                && program.sites.length % 3 == 0
+                && program.positions.length % 3 == 0
+                && program.slotCount >= 0
+                && program.maxStack <= program.code.length, "malformed program");
+
+        for (var variable : program.variables)
+            check(variable != null, "null variable name");
+
+        for (int site = 0; site < program.sites.length; site += 3) {
+            var kind = program.sites[site];
+            check(kind == UNARY_SITE || kind == BINARY_SITE, "invalid site kind " + kind);
+            check(isString(program, program.sites[site + 1]), "invalid site operator " + site / 3);
+            var operator = (String) program.constants[program.sites[site + 1]];
+            check(formula.binaryOperationTable.defines(operator)
+                    || kind == UNARY_SITE && formula.unaryOperationTable.defines(operator), "operator " + operator + " is not defined");
+            check(isPosition(program, program.sites[site + 2]), "invalid site position " + site / 3);
+        }
+
+        var verifier = new ProgramVerifier(formula, program);
+        check(verifier.block(0, program.code.length, 0) == 1, "program must produce exactly one value");
+        check(verifier.maxDepth <= program.maxStack, "stack depth " + verifier.maxDepth + " exceeds " + program.maxStack);
+    }
+
+    private int block(int start, int end, int depth) {
+        var pc = start;
+        while (pc < end) {
+            var opcode = code[pc++];
+            switch (opcode) {
+                case CONST -> {
+                    operands(pc, 1, end);
+                    check(code[pc] >= 0 && code[pc] < program.constants.length, "invalid constant at " + pc);
+                    pc += 1;
+                    depth = push(depth);
+                }
+                case NULL -> depth = push(depth);
+                case LOAD -> {
+                    operands(pc, 2, end);
+                    var variable = code[pc];
+                    check(variable >= 0
+                            && variable < program.variables.length
+                            && isString(program, code[pc + 1])
+                            && program.variables[variable].equals(program.constants[code[pc + 1]]), "invalid variable at " + pc);
+                    pc += 2;
+                    depth = push(depth);
+                }
+                case UNARY -> {
+                    operands(pc, 1, end);
+                    check(isSite(code[pc], UNARY_SITE), "invalid unary site at " + pc);
+                    check(depth > 0, "stack underflow at " + pc);
+                    pc += 1;
+                }
+                case BINARY -> {
+                    operands(pc, 2, end);
+                    var site = code[pc];
+                    var rightEnd = code[pc + 1];
+                    check(isSite(site, BINARY_SITE), "invalid binary site at " + pc);
+                    check(depth > 0, "stack underflow at " + pc);
+                    check(rightEnd > pc + 2 && rightEnd + 2 <= end
+                            && code[rightEnd] == APPLY
+                            && code[rightEnd + 1] == site, "invalid binary jump at " + pc);
+                    check(block(pc + 2, rightEnd, depth + 1) == depth + 2, "invalid right operand at " + pc);
+                    pc = rightEnd + 2;
+                }
+                case CALL -> {
+                    operands(pc, 3, end);
+                    check(isString(program, code[pc]) && isPosition(program, code[pc + 1]), "invalid call at " + pc);
+                    check(formula.functions.containsKey((String) program.constants[code[pc]]),
+                            "function " + program.constants[code[pc]] + "() is not defined");
+                    var count = code[pc + 2];
+                    check(count >= 0 && count <= (end - pc - 3) / 2, "invalid parameter count at " + pc);
+                    var header = pc + 3;
+                    pc = header + 2 * count;
+                    for (int index = 0; index < count; index++) {
+                        var parameterStart = code[header + 2 * index];
+                        var parameterEnd = code[header + 2 * index + 1];
+                        check(parameterStart == pc && parameterEnd > parameterStart && parameterEnd <= end,
+                                "invalid parameter jump at " + (header + 2 * index));
+                        check(block(parameterStart, parameterEnd, depth) == depth + 1, "invalid parameter at " + parameterStart);
+                        pc = parameterEnd;
+                    }
+                    depth = push(depth);
+                }
+                case MEMO -> {
+                    operands(pc, 2, end);
+                    var slot = code[pc];
+                    var memoEnd = code[pc + 1];
+                    check(slot >= 0 && slot < program.slotCount, "invalid slot at " + pc);
+                    check(memoEnd > pc + 2 && memoEnd <= end, "invalid memo jump at " + pc);
+                    check(block(pc + 2, memoEnd, depth) == depth + 1, "invalid memo body at " + pc);
+                    pc = memoEnd;
+                    depth = push(depth);
+                }
+                case STORE -> {
+                    operands(pc, 1, end);
+                    check(code[pc] >= 0 && code[pc] < program.slotCount, "invalid slot at " + pc);
+                    check(depth > 0, "stack underflow at " + pc);
+                    pc += 1;
+                }
+                default -> throw new IllegalArgumentException("invalid opcode " + opcode + " at " + (pc - 1));
+            }
+        }
+        return depth;
+    }
+
+    private int push(int depth) {
+        maxDepth = Math.max(maxDepth, depth + 1);
+        return depth + 1;
+    }
+
+    private void operands(int pc, int count, int end) {
+        check(pc + count <= end, "truncated instruction at " + (pc - 1));
+    }
+
+    private boolean isSite(int site, int kind) {
+        return site >= 0 && site < program.sites.length / 3 && program.sites[3 * site] == kind;
+    }
+
+    private static boolean isString(Program program, int index) {
+        return index >= 0 && index < program.constants.length && program.constants[index] instanceof String;
+    }
+
+    private static boolean isPosition(Program program, int index) {
+        return index >= 0 && index < program.positions.length / 3;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new IllegalArgumentException(message);
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.ducoral.formula;
+
+import java.util.Map;
+
+@FunctionalInterface
+public interface Scope {
+
+    Object get(String name);
+
+    default boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    default boolean hasLong(String name) {
+        return false;
+    }
+
+    default long getLong(String name) {
+        return Coercions.DEFAULT.toLong(get(name));
+    }
+
+    default double getDouble(String name) {
+        var object = get(name);
+        return object instanceof Number number
+                ? number.doubleValue()
+                : new Value(object).asBigDecimal().doubleValue();
+    }
+
+    default boolean getBoolean(String name) {
+        var object = get(name);
+        return object instanceof Boolean booleanValue
+                ? booleanValue
+                : new Value(object).isTruthful();
+    }
+
+    static Scope of(Map<String, Object> map) {
+        return new Scope() {
+            @Override
+            public Object get(String name) {
+                return map.get(name);
+            }
+
+            @Override
+            public boolean contains(String name) {
+                return map.containsKey(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.ducoral.formula;
+
+record Site(InlineCache inlineCache, int slot, int variable) {
+
+    static final int NO_SLOT = -1;
+
+    static final int NO_VARIABLE = -1;
+
+    Site(InlineCache inlineCache, int slot) {
+        this(inlineCache, slot, NO_VARIABLE);
+    }
+
+    boolean hasSlot() {
+        return slot != NO_SLOT;
+    }
+}
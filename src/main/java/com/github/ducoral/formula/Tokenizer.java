@@ -14,183 +14,220 @@ import static com.github.ducoral.formula.TokenType.SYMBOL;
 
 class Tokenizer {
 
-    private final CharReader charReader;
+    private static final char END = '\0';
+
+    private final String input;
 
     private final OperatorParser operatorParser;
 
     private final OperatorPrecedence operatorPrecedence;
 
-    private final StringBuilder lexeme;
+    private int index;
+
+    private int line;
+
+    private int lineStart;
+
+    private TokenType type;
 
-    private CharInfo current;
+    private int start;
 
-    private Token token;
+    private int end;
 
-    private boolean flagDigits;
+    private int startLine;
 
-    Tokenizer(CharReader charReader, OperatorParser operatorParser, OperatorPrecedence operatorPrecedence) {
-        this.charReader = charReader;
+    private int startLineStart;
+
+    private String lexeme;
+
+    Tokenizer(String input, OperatorParser operatorParser, OperatorPrecedence operatorPrecedence) {
+        this.input = input;
         this.operatorParser = operatorParser;
         this.operatorPrecedence = operatorPrecedence;
-        lexeme = new StringBuilder();
-        current = charReader.next();
+        index = 0;
+        line = 0;
+        lineStart = 0;
+        if (current() == '\n')
+            line++;
         tokenize();
     }
 
     Token token() {
-        return token;
+        return new Token(type, lexeme(), position());
     }
 
     TokenType type() {
-        return token.type();
+        return type;
     }
 
     Position position() {
-        return token.position();
+        return new Position(start, startLine, start - startLineStart);
     }
 
     String lexeme() {
-        return token.lexeme();
+        if (lexeme == null)
+            lexeme = input.substring(start, end);
+        return lexeme;
     }
 
     boolean isType(TokenType... types) {
         for (var type : types)
-            if (token.type() == type)
+            if (this.type == type)
                 return true;
         return false;
     }
 
     boolean isLexeme(String lexeme) {
-        return token.lexeme().equals(lexeme);
+        if (this.lexeme != null)
+            return this.lexeme.equals(lexeme);
+        return end - start == lexeme.length()
+                && input.regionMatches(start, lexeme, 0, lexeme.length());
     }
 
-    boolean isOperatorOfPrecedence(int precedence) {
-        return operatorPrecedence
-                .getOperatorsOfPrecedence(precedence)
-                .contains(token.lexeme());
+    int operatorLevel() {
+        return operatorPrecedence.levelOf(lexeme());
     }
 
     boolean isEOF() {
-        return token.isEOF();
+        return type == EOF;
     }
 
     void tokenize() {
         ignoreWhitespace();
 
-        if (current.isEOF()) {
-            token = new Token(EOF, "EOF", current.position());
-            return;
-        }
-
-        operatorParser.reset();
-        lexeme.setLength(0);
+        begin();
+        var ch = current();
 
-        if (current.isIdentifierStart())
+        if (ch == END)
+            finish(EOF, "EOF");
+        else if (CharTable.isIdentifierStart(ch))
             tokenizeIdentifier();
-        else if (current.isDigit() || current.is('.'))
+        else if (CharTable.isDigit(ch) || ch == '.')
             tokenizeNumber();
-        else if (current.isStringDelimiter())
+        else if (CharTable.isStringDelimiter(ch))
             tokenizeString();
-        else if (operatorParser.isOperatorStart(current.value()))
+        else if (operatorParser.isOperatorStart(ch))
             tokenizeOperator();
-        else if (current.isSymbol()) {
-            token = new Token(SYMBOL, current.asString(), current.position());
+        else if (CharTable.symbol(ch) != null) {
             next();
+            finish(SYMBOL, CharTable.symbol(ch));
         } else
-            throw new FormulaException(INVALID_CHARACTER, current.position(), current.value());
+            throw new FormulaException(INVALID_CHARACTER, position(), ch);
     }
 
     private void ignoreWhitespace() {
-        while (current.isWhitespace())
+        while (CharTable.isWhitespace(current()))
             next();
     }
 
     private void tokenizeIdentifier() {
-        var position = current.position();
-        appendLexemeAndNext();
-        while (current.isIdentifierPart())
-            appendLexemeAndNext();
-        var tokenType = operatorParser.isOperator(lexeme.toString())
-                ? OPERATOR
-                : IDENTIFIER;
-        token = new Token(tokenType, lexeme.toString(), position);
+        next();
+        while (CharTable.isIdentifierPart(current()))
+            next();
+        var lexeme = input.substring(start, index);
+        finish(operatorParser.isOperator(lexeme) ? OPERATOR : IDENTIFIER, lexeme);
     }
 
     private void tokenizeNumber() {
-        var position = current.position();
-        flagDigits = false;
-        appendDigits();
-        if (current.isOneOf('e', 'E'))
-            tokenizeCientificNotation(position);
-        else if (current.is('.'))
-            tokenizeDecimal(position);
+        var digits = skipDigits();
+        if (current() == 'e' || current() == 'E')
+            tokenizeCientificNotation();
+        else if (current() == '.')
+            tokenizeDecimal(digits);
         else
-            token = new Token(INTEGER, lexeme.toString(), position);
+            finish(INTEGER, null);
     }
 
-    private void tokenizeDecimal(Position position) {
-        appendLexemeAndNext();
-        appendDigits();
-        if (current.isOneOf('e', 'E'))
-            tokenizeCientificNotation(position);
-        else if (flagDigits)
-            token = new Token(DECIMAL, lexeme.toString(), position);
+    private void tokenizeDecimal(boolean digits) {
+        next();
+        digits |= skipDigits();
+        if (current() == 'e' || current() == 'E')
+            tokenizeCientificNotation();
+        else if (digits)
+            finish(DECIMAL, null);
         else
-            throw new FormulaException(INVALID_DECIMAL_NUMBER, position, lexeme);
+            throw new FormulaException(INVALID_DECIMAL_NUMBER, position(), input.substring(start, index));
     }
 
-    private void tokenizeCientificNotation(Position position) {
-        appendLexemeAndNext();
-        if (current.isOneOf('+', '-'))
-            appendLexemeAndNext();
-        if (!current.isDigit())
-            throw new FormulaException(INVALID_DECIMAL_NUMBER, position, lexeme);
-        appendDigits();
-        token = new Token(DECIMAL, lexeme.toString(), position);
+    private void tokenizeCientificNotation() {
+        next();
+        if (current() == '+' || current() == '-')
+            next();
+        if (!CharTable.isDigit(current()))
+            throw new FormulaException(INVALID_DECIMAL_NUMBER, position(), input.substring(start, index));
+        skipDigits();
+        finish(DECIMAL, null);
     }
 
-    private void appendDigits() {
-        while (current.isDigit()) {
-            flagDigits = true;
-            appendLexemeAndNext();
+    private boolean skipDigits() {
+        var digits = false;
+        while (CharTable.isDigit(current())) {
+            digits = true;
+            next();
         }
+        return digits;
     }
 
     private void tokenizeString() {
-        var position = current.position();
-        var delimiter = current.value();
+        var delimiter = current();
         next();
-        while (!current.isEOF() && !current.is(delimiter)) {
-            if (current.is('\\')) {
+        StringBuilder unescaped = null;
+        var segment = index;
+        while (current() != END && current() != delimiter) {
+            if (current() == '\\') {
+                if (unescaped == null)
+                    unescaped = new StringBuilder();
+                unescaped.append(input, segment, index);
                 next();
-                if (!current.isOneOf('\\', delimiter))
-                    throw new FormulaException(INVALID_ESCAPE, position, current.value());
+                if (current() != '\\' && current() != delimiter)
+                    throw new FormulaException(INVALID_ESCAPE, position(), current());
+                segment = index;
             }
-            appendLexemeAndNext();
+            next();
         }
-        if (!current.is(delimiter))
-            throw new FormulaException(STRING_NOT_CLOSED_CORRECTLY, position, delimiter + lexeme.toString());
-        token = new Token(STRING, lexeme.toString(), position);
+        var content = unescaped == null
+                ? input.substring(segment, index)
+                : unescaped.append(input, segment, index).toString();
+        if (current() != delimiter)
+            throw new FormulaException(STRING_NOT_CLOSED_CORRECTLY, position(), delimiter + content);
         next();
+        finish(STRING, content);
     }
 
     private void tokenizeOperator() {
-        var position = current.position();
-        operatorParser.start(current.value());
-        appendLexemeAndNext();
-        while (operatorParser.isOperatorPart(current.value())) {
-            operatorParser.acceptPart(current.value());
-            appendLexemeAndNext();
+        var node = operatorParser.start(current());
+        next();
+        int following;
+        while ((following = operatorParser.next(node, current())) != OperatorParser.NONE) {
+            node = following;
+            next();
         }
-        token = new Token(OPERATOR, lexeme.toString(), position);
+        finish(OPERATOR, operatorParser.operator(node));
     }
 
-    private void appendLexemeAndNext() {
-        current.appendTo(lexeme);
-        next();
+    private void begin() {
+        start = index;
+        startLine = line;
+        startLineStart = lineStart;
+    }
+
+    private void finish(TokenType type, String lexeme) {
+        this.type = type;
+        this.end = index;
+        this.lexeme = lexeme;
+    }
+
+    private char current() {
+        return index < input.length() ? input.charAt(index) : END;
     }
 
     private void next() {
-        current = charReader.next();
+        if (index == input.length())
+            return;
+        index++;
+        if (current() == '\n') {
+            line++;
+            lineStart = index;
+        }
     }
-}
\ No newline at end of file
+}
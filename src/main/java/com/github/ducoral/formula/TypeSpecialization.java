@@ -0,0 +1,149 @@
+package com.github.ducoral.formula;
+
+import java.math.BigInteger;
+
+class TypeSpecialization {
+
+    static final int MAX_ATTEMPTS = 4;
+
+    private final InlineCache inlineCache;
+
+    private volatile Guard guard;
+
+    private volatile int attempts;
+
+    TypeSpecialization(InlineCache inlineCache) {
+        this.inlineCache = inlineCache;
+    }
+
+    Object unary(Object right) {
+        var current = guard;
+        if (current != null && current.accepts(null, right))
+            return ((UnaryLongAction) current.action).applyLong(((Number) right).longValue());
+        specialize(true, null, right);
+        return null;
+    }
+
+    Object binary(Object left, Object right) {
+        var current = guard;
+        if (current != null && current.accepts(left, right))
+            return ((BinaryLongAction) current.action).applyLongs(((Number) left).longValue(), ((Number) right).longValue());
+        specialize(false, left, right);
+        return null;
+    }
+
+    Object unaryOfLong(long right) {
+        var current = guard;
+        return current != null && current.right == Long.class
+                ? ((UnaryLongAction) current.action).applyLong(right)
+                : null;
+    }
+
+    Object binaryOfLongs(long left, long right) {
+        var current = guard;
+        return current != null && current.left == Long.class && current.right == Long.class
+                ? ((BinaryLongAction) current.action).applyLongs(left, right)
+                : null;
+    }
+
+    LongInstruction instruction(Class<?> right) {
+        var current = guard;
+        return current != null && current.left == null && current.right == right
+                ? ((UnaryLongAction) current.action).instruction()
+                : LongInstruction.NONE;
+    }
+
+    LongInstruction instruction(Class<?> left, Class<?> right) {
+        var current = guard;
+        return current != null && current.left == left && current.right == right
+                ? ((BinaryLongAction) current.action).instruction()
+                : LongInstruction.NONE;
+    }
+
+    boolean acceptsInt(Object right, LongInstruction instruction) {
+        var current = guard;
+        return current != null
+                && current.accepts(null, right)
+                && ((UnaryLongAction) current.action).instruction() == instruction
+                && isInt(right);
+    }
+
+    boolean acceptsInts(Object left, Object right, LongInstruction instruction) {
+        var current = guard;
+        return current != null
+                && current.accepts(left, right)
+                && ((BinaryLongAction) current.action).instruction() == instruction
+                && isInt(left)
+                && isInt(right);
+    }
+
+    private void specialize(boolean unary, Object left, Object right) {
+        if (attempts >= MAX_ATTEMPTS)
+            return;
+        attempts++;
+        guard = null;
+
+        if (!unary && !isLong(left) || !isLong(right))
+            return;
+
+        var operations = inlineCache.operations((unary ? right : left).getClass());
+        if (operations.length != 1)
+            return;
+
+        var action = operations[0].action();
+        if (unary ? action instanceof UnaryLongAction : action instanceof BinaryLongAction)
+            guard = new Guard(unary ? null : left.getClass(), right.getClass(), action);
+    }
+
+    private static boolean isLong(Object value) {
+        if (value == null)
+            return false;
+        var type = value.getClass();
+        return type == Long.class
+                || type == Integer.class
+                || type == Short.class
+                || type == Byte.class
+                || type == BigInteger.class && ((BigInteger) value).bitLength() < Long.SIZE;
+    }
+
+    private static boolean isInt(Object value) {
+        var longValue = ((Number) value).longValue();
+        return longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE;
+    }
+
+    enum LongInstruction {
+        NONE,
+        NEGATE,
+        ADD,
+        SUBTRACT,
+        MULTIPLY,
+        EQUAL,
+        NOT_EQUAL,
+        GREATER_THAN,
+        GREATER_THAN_OR_EQUAL,
+        LESS_THAN,
+        LESS_THAN_OR_EQUAL
+    }
+
+    interface UnaryLongAction extends OperationAction {
+        Object applyLong(long right);
+
+        LongInstruction instruction();
+    }
+
+    interface BinaryLongAction extends OperationAction {
+        Object applyLongs(long left, long right);
+
+        LongInstruction instruction();
+    }
+
+    private record Guard(Class<?> left, Class<?> right, OperationAction action) {
+
+        boolean accepts(Object left, Object right) {
+            return (this.left == null || left != null && left.getClass() == this.left && isLong(left))
+                    && right != null
+                    && right.getClass() == this.right
+                    && isLong(right);
+        }
+    }
+}
@@ -2,58 +2,66 @@ package com.github.ducoral.formula;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 public class Value {
 
     private final Object value;
 
+    private final ValueType type;
+
+    private final Coercions coercions;
+
     Value(Object value) {
+        this(value, Coercions.DEFAULT);
+    }
+
+    Value(Object value, Coercions coercions) {
         this.value = value;
+        this.type = ValueType.of(value);
+        this.coercions = coercions;
     }
 
     public boolean isNull() {
-        return value == null;
+        return type == ValueType.NULL;
     }
 
     public boolean isTrue() {
-        if (value instanceof Boolean booleanValue)
-            return booleanValue;
-        return false;
+        return type == ValueType.BOOLEAN && (Boolean) value;
     }
 
     public boolean isTruthful() {
-        if (value instanceof Boolean booleanValue)
-            return booleanValue;
-        else if (value instanceof String stringValue)
-            return !stringValue.isEmpty();
-        else if (value instanceof Number numberValue)
-            return numberValue.doubleValue() != 0.0;
-        else
-            return value != null;
+        return switch (type) {
+            case BOOLEAN -> (Boolean) value;
+            case STRING -> !((String) value).isEmpty();
+            case INTEGER_SMALL, BIG_INTEGER, FIXED_DECIMAL, DECIMAL -> ((Number) value).doubleValue() != 0.0;
+            case NULL -> false;
+            case OTHER -> true;
+        };
     }
 
     public boolean isNumber() {
-        return value instanceof Number;
+        return type.number;
     }
 
     public boolean isInteger() {
-        return isType(Byte.class)
-                || isType(Short.class)
-                || isType(Integer.class)
-                || isType(Long.class)
-                || isType(BigInteger.class)
-                || isType(AtomicInteger.class)
-                || isType(AtomicLong.class);
+        return type.integer;
+    }
+
+    boolean isLong() {
+        return type == ValueType.INTEGER_SMALL
+                || type == ValueType.BIG_INTEGER && ((BigInteger) value).bitLength() < Long.SIZE;
+    }
+
+    boolean isFixedDecimal() {
+        return type == ValueType.FIXED_DECIMAL;
     }
 
     public boolean isDecimal() {
-        return isNumber() && !isInteger();
+        return type.number && !type.integer;
     }
 
     public boolean isString() {
-        return value instanceof String;
+        return type == ValueType.STRING;
     }
 
     public <T> boolean isType(Class<T> type) {
@@ -63,13 +71,27 @@ public class Value {
     public BigInteger asBigInteger() {
         return value instanceof BigInteger bigInteger
                 ? bigInteger
-                : new BigInteger(String.valueOf(value));
+                : coercions.toBigInteger(value);
+    }
+
+    long asLong() {
+        return ((Number) value).longValue();
+    }
+
+    double asDouble() {
+        return ((Number) value).doubleValue();
+    }
+
+    FixedDecimal asFixedDecimal() {
+        return value instanceof FixedDecimal fixedDecimal
+                ? fixedDecimal
+                : FixedDecimal.valueOf(asLong());
     }
 
     public BigDecimal asBigDecimal() {
         return value instanceof BigDecimal bigDecimal
                 ? bigDecimal
-                : new BigDecimal(String.valueOf(value));
+                : coercions.toBigDecimal(value);
     }
 
     public String asString() {
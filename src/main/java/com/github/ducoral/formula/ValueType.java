@@ -0,0 +1,62 @@
+package com.github.ducoral.formula;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+enum ValueType {
+
+    INTEGER_SMALL(true, true),
+
+    BIG_INTEGER(true, true),
+
+    FIXED_DECIMAL(true, false),
+
+    DECIMAL(true, false),
+
+    STRING(false, false),
+
+    BOOLEAN(false, false),
+
+    NULL(false, false),
+
+    OTHER(false, false);
+
+    private static final ClassValue<ValueType> TYPES = new ClassValue<>() {
+        @Override
+        protected ValueType computeValue(Class<?> type) {
+            if (type == Byte.class
+                    || type == Short.class
+                    || type == Integer.class
+                    || type == Long.class
+                    || AtomicInteger.class.isAssignableFrom(type)
+                    || AtomicLong.class.isAssignableFrom(type))
+                return INTEGER_SMALL;
+            else if (BigInteger.class.isAssignableFrom(type))
+                return BIG_INTEGER;
+            else if (type == FixedDecimal.class)
+                return FIXED_DECIMAL;
+            else if (Number.class.isAssignableFrom(type))
+                return DECIMAL;
+            else if (type == String.class)
+                return STRING;
+            else if (type == Boolean.class)
+                return BOOLEAN;
+            else
+                return OTHER;
+        }
+    };
+
+    final boolean number;
+
+    final boolean integer;
+
+    ValueType(boolean number, boolean integer) {
+        this.number = number;
+        this.integer = integer;
+    }
+
+    static ValueType of(Object value) {
+        return value == null ? NULL : TYPES.get(value.getClass());
+    }
+}
@@ -0,0 +1,329 @@
+package com.github.ducoral.formula;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.github.ducoral.formula.Program.APPLY;
+import static com.github.ducoral.formula.Program.BINARY;
+import static com.github.ducoral.formula.Program.CALL;
+import static com.github.ducoral.formula.Program.CONST;
+import static com.github.ducoral.formula.Program.LOAD;
+import static com.github.ducoral.formula.Program.MEMO;
+import static com.github.ducoral.formula.Program.NULL;
+import static com.github.ducoral.formula.Program.STORE;
+import static com.github.ducoral.formula.Program.UNARY;
+import static com.github.ducoral.formula.Program.UNARY_SITE;
+
+class VirtualMachine {
+
+    private final int[] code;
+
+    private final Object[] constants;
+
+    private final Unboxed[] constantLanes;
+
+    private final long[] constantLongs;
+
+    private final int maxStack;
+
+    private final Position[] positions;
+
+    private final InlineCache[] inlineCaches;
+
+    private final TypeSpecialization[] specializations;
+
+    private final String[] operators;
+
+    private final Position[] sitePositions;
+
+    private final Map<String, FunctionDefinition> functions;
+
+    private final Coercions coercions;
+
+    private VirtualMachine(Formula formula, Program program) {
+        code = program.code;
+        constants = program.constants;
+        maxStack = program.maxStack;
+        functions = formula.functions;
+        coercions = formula.coercions;
+
+        constantLanes = new Unboxed[constants.length];
+        constantLongs = new long[constants.length];
+        for (int index = 0; index < constants.length; index++) {
+            if (constants[index] instanceof Long longValue) {
+                constantLanes[index] = Unboxed.LONG;
+                constantLongs[index] = longValue;
+            } else if (constants[index] instanceof BigInteger bigInteger && bigInteger.bitLength() < Long.SIZE) {
+                constantLanes[index] = Unboxed.BIG_INTEGER;
+                constantLongs[index] = bigInteger.longValue();
+            }
+        }
+
+        positions = new Position[program.positions.length / 3];
+        for (int index = 0; index < positions.length; index++)
+            positions[index] = new Position(
+                    program.positions[3 * index],
+                    program.positions[3 * index + 1],
+                    program.positions[3 * index + 2]);
+
+        var siteCount = program.sites.length / 3;
+        inlineCaches = new InlineCache[siteCount];
+        specializations = new TypeSpecialization[siteCount];
+        operators = new String[siteCount];
+        sitePositions = new Position[siteCount];
+        for (int site = 0; site < siteCount; site++) {
+            var operator = (String) constants[program.sites[3 * site + 1]];
+            var operationTable = program.sites[3 * site] == UNARY_SITE
+                    ? formula.unaryOperationTable
+                    : formula.binaryOperationTable;
+            inlineCaches[site] = new InlineCache(operationTable, operator);
+            specializations[site] = new TypeSpecialization(inlineCaches[site]);
+            operators[site] = operator;
+            sitePositions[site] = positions[program.sites[3 * site + 2]];
+        }
+    }
+
+    static Executable executable(Formula formula, Program program) {
+        var machine = new VirtualMachine(formula, program);
+        var slotCount = program.slotCount;
+        var length = program.code.length;
+        var coercions = formula.coercions;
+        return (scope, variables) -> new Value(machine.run(new Frame(null, scope, variables, slotCount), 0, length), coercions);
+    }
+
+    private Object run(Frame frame, int start, int end) {
+        return run(frame, new Object[maxStack], new long[maxStack], 0, start, end);
+    }
+
+    private Object run(Frame frame, Object[] stack, long[] longs, int base, int start, int end) {
+        var top = base;
+        var pc = start;
+        while (pc < end) {
+            switch (code[pc++]) {
+                case CONST -> {
+                    var index = code[pc++];
+                    stack[top] = constantLanes[index] == null ? constants[index] : constantLanes[index];
+                    longs[top++] = constantLongs[index];
+                }
+                case NULL -> stack[top++] = null;
+                case LOAD -> {
+                    var index = code[pc++];
+                    var name = (String) constants[code[pc++]];
+                    if (frame.hasLong(index, name)) {
+                        stack[top] = Unboxed.LONG;
+                        longs[top++] = frame.longVariable(index, name);
+                    } else
+                        stack[top++] = frame.variable(index, name);
+                }
+                case UNARY -> {
+                    var site = code[pc++];
+                    if (stack[top - 1] instanceof Unboxed unboxed
+                            && longs[top - 1] != Long.MIN_VALUE
+                            && specializations[site].instruction(unboxed.type) == TypeSpecialization.LongInstruction.NEGATE) {
+                        stack[top - 1] = Unboxed.BIG_INTEGER;
+                        longs[top - 1] = -longs[top - 1];
+                        continue;
+                    }
+                    var rightObject = boxed(stack, longs, top - 1);
+                    var specialized = specializations[site].unary(rightObject);
+                    if (specialized != null)
+                        stack[top - 1] = specialized;
+                    else {
+                        var value = new Value(rightObject, coercions);
+                        var operations = inlineCaches[site].operations(value.getType());
+                        stack[top - 1] = OperationResolver.chain(
+                                operations,
+                                Evaluator.operandsOfUnary(sitePositions[site], operators[site], value));
+                    }
+                }
+                case BINARY -> {
+                    var site = code[pc++];
+                    var rightEnd = code[pc++];
+                    var operations = inlineCaches[site].operations(typeOf(stack, top - 1));
+                    if (OperationResolver.isLazy(operations)) {
+                        var value = new Value(boxed(stack, longs, top - 1), coercions);
+                        var operand = new Operand(frame, stack, longs, top);
+                        var rightStart = pc;
+                        Supplier<Value> right = () -> new Value(operand.run(rightStart, rightEnd), coercions);
+                        stack[top - 1] = OperationResolver.chain(
+                                operations,
+                                Evaluator.operandsOfBinary(sitePositions[site], value, operators[site], right));
+                        operand.close();
+                        pc = rightEnd + 2;
+                    } else
+                        stack[top++] = operations;
+                }
+                case APPLY -> {
+                    var site = code[pc++];
+                    top -= 2;
+                    if (stack[top - 1] instanceof Unboxed left
+                            && stack[top + 1] instanceof Unboxed right
+                            && applyLongs(specializations[site].instruction(left.type, right.type), stack, longs, top - 1))
+                        continue;
+                    var operations = (Operation[]) stack[top];
+                    var leftObject = boxed(stack, longs, top - 1);
+                    var rightObject = boxed(stack, longs, top + 1);
+                    var specialized = specializations[site].binary(leftObject, rightObject);
+                    if (specialized != null)
+                        stack[top - 1] = specialized;
+                    else {
+                        var value = new Value(leftObject, coercions);
+                        var right = new Value(rightObject, coercions);
+                        stack[top - 1] = OperationResolver.chain(
+                                operations,
+                                Evaluator.operandsOfBinary(sitePositions[site], value, operators[site], () -> right));
+                    }
+                }
+                case CALL -> {
+                    var name = (String) constants[code[pc++]];
+                    var position = positions[code[pc++]];
+                    var count = code[pc++];
+                    var header = pc;
+                    if (count > 0)
+                        pc = code[header + 2 * count - 1];
+                    var definition = functions.get(name);
+                    if (definition == null)
+                        throw new FormulaException(FormulaExceptionType.FUNCTION_NOT_DEFINED, position, name + "()");
+                    var operand = new Operand(frame, stack, longs, top);
+                    stack[top] = definition.function().apply(new Parameters(
+                            coercions,
+                            count,
+                            index -> operand.run(code[header + 2 * index], code[header + 2 * index + 1])));
+                    operand.close();
+                    top++;
+                }
+                case MEMO -> {
+                    var slot = code[pc++];
+                    var memoEnd = code[pc++];
+                    if (frame.isEvaluated(slot)) {
+                        stack[top++] = frame.slot(slot);
+                        pc = memoEnd;
+                    }
+                }
+                case STORE -> {
+                    var value = boxed(stack, longs, top - 1);
+                    stack[top - 1] = value;
+                    frame.store(code[pc++], value);
+                }
+                default -> throw new IllegalStateException("invalid opcode at " + (pc - 1));
+            }
+        }
+        return boxed(stack, longs, base);
+    }
+
+    private static boolean applyLongs(TypeSpecialization.LongInstruction instruction, Object[] stack, long[] longs, int index) {
+        var left = longs[index];
+        var right = longs[index + 2];
+        long result;
+        switch (instruction) {
+            case ADD -> {
+                result = left + right;
+                if (((left ^ result) & (right ^ result)) < 0)
+                    return false;
+            }
+            case SUBTRACT -> {
+                result = left - right;
+                if (((left ^ right) & (left ^ result)) < 0)
+                    return false;
+            }
+            case MULTIPLY -> {
+                result = left * right;
+                if (Math.multiplyHigh(left, right) != result >> 63)
+                    return false;
+            }
+            case EQUAL -> {
+                stack[index] = left == right;
+                return true;
+            }
+            case NOT_EQUAL -> {
+                stack[index] = left != right;
+                return true;
+            }
+            case GREATER_THAN -> {
+                stack[index] = left > right;
+                return true;
+            }
+            case GREATER_THAN_OR_EQUAL -> {
+                stack[index] = left >= right;
+                return true;
+            }
+            case LESS_THAN -> {
+                stack[index] = left < right;
+                return true;
+            }
+            case LESS_THAN_OR_EQUAL -> {
+                stack[index] = left <= right;
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+        stack[index] = Unboxed.BIG_INTEGER;
+        longs[index] = result;
+        return true;
+    }
+
+    private static Object boxed(Object[] stack, long[] longs, int index) {
+        return stack[index] instanceof Unboxed unboxed
+                ? unboxed.box(longs[index])
+                : stack[index];
+    }
+
+    private static Class<?> typeOf(Object[] stack, int index) {
+        var object = stack[index];
+        return object instanceof Unboxed unboxed
+                ? unboxed.type
+                : object == null ? null : object.getClass();
+    }
+
+    private enum Unboxed {
+        LONG(Long.class),
+        BIG_INTEGER(BigInteger.class);
+
+        final Class<?> type;
+
+        Unboxed(Class<?> type) {
+            this.type = type;
+        }
+
+        Object box(long value) {
+            return this == LONG ? Long.valueOf(value) : BigInteger.valueOf(value);
+        }
+    }
+
+    // Lazy right operands and function parameters are handed to operations as suppliers, so they
+    // re-enter run() on the shared stack: nesting depth of those operands still costs Java stack.
+    private final class Operand {
+
+        private final Frame frame;
+
+        private final Object[] stack;
+
+        private final long[] longs;
+
+        private final int base;
+
+        private final Thread owner = Thread.currentThread();
+
+        private boolean open = true;
+
+        Operand(Frame frame, Object[] stack, long[] longs, int base) {
+            this.frame = frame;
+            this.stack = stack;
+            this.longs = longs;
+            this.base = base;
+        }
+
+        Object run(int start, int end) {
+            return open && owner == Thread.currentThread()
+                    ? VirtualMachine.this.run(frame, stack, longs, base, start, end)
+                    : VirtualMachine.this.run(frame, start, end);
+        }
+
+        void close() {
+            open = false;
+        }
+    }
+}
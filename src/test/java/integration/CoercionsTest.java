@@ -0,0 +1,105 @@
+package integration;
+
+import com.github.ducoral.formula.Engine;
+import com.github.ducoral.formula.Formula;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_DEFAULT;
+import static integration.TestUtils.assertOK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CoercionsTest {
+
+    final Formula formula = Formula.builder()
+            .configure(OPERATIONS_DEFAULT)
+            .build();
+
+    @Test
+    void testBuiltInCoercions() {
+        var result = formula.evaluate("i + l + a", Map.of("i", 1, "l", 2L, "a", new AtomicLong(3)));
+        assertOK(result);
+        assertEquals(BigInteger.valueOf(6), result.value().asObject());
+
+        result = formula.evaluate("d + f + 1", Map.of("d", 0.1, "f", 0.5f));
+        assertOK(result);
+        assertEquals(new BigDecimal("1.6"), result.value().asObject());
+
+        result = formula.evaluate("x * 2", Map.of("x", Short.valueOf((short) 21)));
+        assertOK(result);
+        assertEquals(BigInteger.valueOf(42), result.value().asBigInteger());
+        assertEquals(new BigDecimal("42"), result.value().asBigDecimal());
+    }
+
+    @Test
+    void testBuilderCoercion() {
+        var scope = Map.<String, Object>of("price", new Cents(1990));
+
+        assertThrows(NumberFormatException.class, () -> formula.evaluate("price + 0.10", scope));
+
+        var withCents = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .coercion(
+                        Cents.class,
+                        cents -> BigInteger.valueOf(cents.value / 100),
+                        cents -> BigDecimal.valueOf(cents.value, 2))
+                .build();
+
+        var result = withCents.evaluate("price + 0.10", scope);
+        assertOK(result);
+        assertEquals(new BigDecimal("20.00"), result.value().asObject());
+        assertEquals(BigInteger.valueOf(19), withCents.evaluate("price", scope).value().asBigInteger());
+
+        for (var engine : Engine.values()) {
+            var compiled = Formula.builder()
+                    .configure(OPERATIONS_DEFAULT)
+                    .coercion(Cents.class, cents -> BigInteger.valueOf(cents.value / 100), cents -> BigDecimal.valueOf(cents.value, 2))
+                    .engine(engine)
+                    .build()
+                    .compile("-price * 2")
+                    .value();
+            assertEquals(new BigDecimal("-39.8000"), compiled.evaluate(scope).value().asObject(), engine.name());
+        }
+
+        assertThrows(NumberFormatException.class, () -> formula.evaluate("price + 0.10", scope));
+    }
+
+    static class Cents extends Number {
+
+        final long value;
+
+        Cents(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) value;
+        }
+
+        @Override
+        public long longValue() {
+            return value;
+        }
+
+        @Override
+        public float floatValue() {
+            return value;
+        }
+
+        @Override
+        public double doubleValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return value + " cents";
+        }
+    }
+}
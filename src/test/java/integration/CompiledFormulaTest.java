@@ -0,0 +1,352 @@
+package integration;
+
+import com.github.ducoral.formula.Formula;
+import com.github.ducoral.formula.FunctionDefinition;
+import com.github.ducoral.formula.Operation;
+import com.github.ducoral.formula.Operator;
+import com.github.ducoral.formula.Precedence;
+import com.github.ducoral.formula.Program;
+import com.github.ducoral.formula.Scope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_DEFAULT;
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_NUMBER;
+import static com.github.ducoral.formula.FormulaExceptionType.FUNCTION_NOT_DEFINED;
+import static com.github.ducoral.formula.FormulaExceptionType.OPERATION_NOT_SUPPORTED;
+import static com.github.ducoral.formula.FormulaExceptionType.UNEXPECTED_TOKEN;
+import static integration.TestUtils.assertOK;
+import static integration.TestUtils.formatMessage;
+import static integration.TestUtils.pos;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompiledFormulaTest {
+
+    Formula formula;
+
+    @BeforeEach
+    void beforeEach() {
+        Locale.setDefault(Locale.ENGLISH);
+
+        formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .function(new FunctionDefinition("twice", parameters -> parameters.get(0).asBigInteger().shiftLeft(1)))
+                .build();
+    }
+
+    @Test
+    void testCompileEmpty() {
+        var result = formula.compile("");
+        assertOK(result);
+
+        var value = result.value().evaluate();
+        assertOK(value);
+        assertTrue(value.value().isNull());
+    }
+
+    @Test
+    void testCompileWithParserException() {
+        var result = formula.compile("foo(123");
+        assertFalse(result.isOK());
+        assertEquals(UNEXPECTED_TOKEN, result.exception().type);
+        assertEquals(pos(7), result.exception().position);
+    }
+
+    @Test
+    void testEvaluateManyTimes() {
+        var result = formula.compile("twice(a) + b");
+        assertOK(result);
+
+        var compiled = result.value();
+        assertEquals("twice(a) + b", compiled.input());
+
+        for (var index = 0; index < 10; index++) {
+            var value = compiled.evaluate(Map.of("a", index, "b", 1));
+            assertOK(value);
+            assertEquals(BigInteger.valueOf(index * 2 + 1), value.value().asBigInteger());
+        }
+    }
+
+    @Test
+    void testEvaluateWithScope() {
+        var compiled = formula.compile("a * b").value();
+
+        Scope scope = name -> name.equals("a") ? 6 : 7;
+        var value = compiled.evaluate(scope);
+        assertOK(value);
+        assertEquals(BigInteger.valueOf(42), value.value().asBigInteger());
+    }
+
+    @Test
+    void testEvaluatePolymorphicOperands() {
+        var compiled = formula.compile("a + b").value();
+
+        for (var round = 0; round < 2; round++) {
+            assertEquals("3", compiled.evaluate(Map.of("a", 1, "b", 2)).value().asString());
+            assertEquals("ab", compiled.evaluate(Map.of("a", "a", "b", "b")).value().asString());
+            assertEquals("3.5", compiled.evaluate(Map.of("a", new BigDecimal("1.5"), "b", 2)).value().asString());
+            assertEquals("3", compiled.evaluate(Map.of("a", 1L, "b", 2L)).value().asString());
+            assertEquals("3.5", compiled.evaluate(Map.of("a", 1.5, "b", 2)).value().asString());
+            assertEquals("3", compiled.evaluate(Map.of("a", (short) 1, "b", 2)).value().asString());
+        }
+
+        var value = compiled.evaluate(Map.of("a", true, "b", 2));
+        assertFalse(value.isOK());
+        assertEquals(OPERATION_NOT_SUPPORTED, value.exception().type);
+    }
+
+    @Test
+    void testConstantFolding() {
+        var compiled = formula.compile("(60 * 60 * 24) * days").value();
+        assertEquals("86400 * days", compiled.expression().toString());
+        assertEquals(BigInteger.valueOf(172800), compiled.evaluate(Map.of("days", 2)).value().asBigInteger());
+
+        compiled = formula.compile("'prefix' + '-' + code").value();
+        assertEquals("\"prefix-\" + code", compiled.expression().toString());
+
+        compiled = formula.compile("-(1.5 * 2) + x").value();
+        assertEquals("-3.00 + x", compiled.expression().toString());
+
+        compiled = formula.compile("1 / 0 + 1").value();
+        assertEquals("(1 / 0) + 1", compiled.expression().toString());
+
+        compiled = formula.compile("1 < 2").value();
+        assertEquals("1 < 2", compiled.expression().toString());
+
+        var notOptimized = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .optimize(false)
+                .build();
+        assertEquals("(60 * 60) * 24", notOptimized.compile("60 * 60 * 24").value().expression().toString());
+    }
+
+    @Test
+    void testPureFunctionFolding() {
+        var calls = new AtomicInteger();
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .function(FunctionDefinition.pure("square", parameters -> {
+                    calls.incrementAndGet();
+                    return parameters.get(0).asBigInteger().pow(2);
+                }))
+                .function(new FunctionDefinition("impure", parameters -> calls.incrementAndGet()))
+                .build();
+
+        var compiled = formula.compile("square(2 + 1) + square(x) + impure()").value();
+        assertEquals("(9 + square(x)) + impure()", compiled.expression().toString());
+        assertEquals(1, calls.get());
+
+        compiled.evaluate(Map.of("x", 2));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testCommonSubexpressions() {
+        var calls = new AtomicInteger();
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .function(FunctionDefinition.pure("rate", parameters -> {
+                    calls.incrementAndGet();
+                    return parameters.get(0).asBigInteger().multiply(parameters.get(1).asBigInteger());
+                }))
+                .function(new FunctionDefinition("next", parameters -> calls.incrementAndGet()))
+                .build();
+
+        var compiled = formula.compile("rate(region, tier) * qty + rate(region,tier) * qty - rate(region, tier)").value();
+        var value = compiled.evaluate(Map.of("region", 2, "tier", 3, "qty", 5));
+        assertOK(value);
+        assertEquals(BigInteger.valueOf(54), value.value().asBigInteger());
+        assertEquals(1, calls.get());
+
+        value = compiled.evaluate(Map.of("region", 1, "tier", 1, "qty", 1));
+        assertOK(value);
+        assertEquals(BigInteger.ONE, value.value().asBigInteger());
+        assertEquals(2, calls.get());
+
+        calls.set(0);
+        compiled = formula.compile("next() + next()").value();
+        assertEquals(BigInteger.valueOf(3), compiled.evaluate().value().asBigInteger());
+        assertEquals(2, calls.get());
+
+        var lookups = new AtomicInteger();
+        Scope scope = name -> {
+            lookups.incrementAndGet();
+            return 3;
+        };
+        compiled = formula.compile("(a + b) * (a + b) - -a * -a").value();
+        value = compiled.evaluate(scope);
+        assertOK(value);
+        assertEquals(BigInteger.valueOf(27), value.value().asBigInteger());
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    void testCommonSubexpressionsWithCustomOperations() {
+        var calls = new AtomicInteger();
+        var rnd = new Operator("rnd", new Precedence(0));
+        var same = new Operator("same", new Precedence(0));
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .binaryOperation(new Operation(Number.class, rnd, (operands, chain) -> calls.incrementAndGet()))
+                .binaryOperation(Operation.pure(Number.class, same, (operands, chain) -> calls.incrementAndGet()))
+                .build();
+
+        var interpreted = formula.evaluate("(a rnd 1) + (a rnd 1)", Map.of("a", 1));
+        assertOK(interpreted);
+        assertEquals(BigInteger.valueOf(3), interpreted.value().asBigInteger());
+
+        calls.set(0);
+        var compiled = formula.compile("(a rnd 1) + (a rnd 1)").value().evaluate(Map.of("a", 1));
+        assertEquals(interpreted.value().asBigInteger(), compiled.value().asBigInteger());
+        assertEquals(2, calls.get());
+
+        calls.set(0);
+        compiled = formula.compile("(a same 1) + (a same 1)").value().evaluate(Map.of("a", 1));
+        assertEquals(BigInteger.valueOf(2), compiled.value().asBigInteger());
+        assertEquals(1, calls.get());
+
+        calls.set(0);
+        assertEquals("((2 rnd 1) + 1) + 2", formula.compile("(2 rnd 1) + 1 + 2").value().expression().toString());
+        assertEquals(0, calls.get());
+        assertEquals("4", formula.compile("(2 same 1) + 1 + 2").value().expression().toString());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testExplainFoldedExpression() {
+        var compiled = formula.compile("2 * 3 + x").value();
+        assertEquals(String.join("\n",
+                        " | 6 + x",
+                        "-+------",
+                        "1|  [+] ",
+                        "2|  / \\ ",
+                        "3| 6   x"),
+                compiled.explain());
+        assertEquals("", formula.compile("").value().explain());
+    }
+
+    @Test
+    void testEvaluateWithException() {
+        var compiled = formula.compile("foo(123)").value();
+
+        var value = compiled.evaluate();
+        assertFalse(value.isOK());
+        assertEquals(FUNCTION_NOT_DEFINED, value.exception().type);
+        assertEquals(
+                formatMessage("The function foo() has not been defined", "foo(123)", 0),
+                value.formattedErrorMessage());
+    }
+
+    @Test
+    void testVariables() {
+        var compiled = formula.compile("price * quantity + twice(price) - discount").value();
+        assertEquals(List.of("price", "quantity", "discount"), compiled.variables());
+
+        var result = compiled.evaluate(new Object[]{10, 3, 5});
+        assertOK(result);
+        assertEquals(BigInteger.valueOf(45), result.value().asObject());
+
+        var bindings = compiled.bindings();
+        assertEquals(compiled.variables(), bindings.variables());
+        assertEquals(1, bindings.indexOf("quantity"));
+        assertEquals(-1, bindings.indexOf("other"));
+
+        bindings.set("price", 2).set("quantity", 4).set(2, 1);
+        result = compiled.evaluate(bindings);
+        assertOK(result);
+        assertEquals(BigInteger.valueOf(11), result.value().asObject());
+
+        bindings.set(0, 3);
+        assertEquals(BigInteger.valueOf(17), compiled.evaluate(bindings).value().asObject());
+
+        assertThrows(IllegalArgumentException.class, () -> bindings.set("other", 1));
+        assertThrows(IllegalArgumentException.class, () -> compiled.evaluate(new Object[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> formula.compile("price").value().evaluate(bindings));
+    }
+
+    @Test
+    void testLoadSerializedProgram() throws IOException, ClassNotFoundException {
+        var compiled = formula.compile("price * quantity + twice(price) - discount").value();
+
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(compiled.program());
+        }
+        Program program;
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            program = (Program) input.readObject();
+        }
+
+        var loaded = formula.load(program);
+        assertEquals(compiled.input(), loaded.input());
+        assertEquals(compiled.variables(), loaded.variables());
+        assertEquals(compiled.expression().toString(), loaded.expression().toString());
+
+        var result = loaded.evaluate(new Object[]{10, 3, 5});
+        assertOK(result);
+        assertEquals(BigInteger.valueOf(45), result.value().asObject());
+
+        result = loaded.evaluate(Map.of("price", 1, "quantity", 1, "discount", 3));
+        assertOK(result);
+        assertEquals(BigInteger.ZERO, result.value().asObject());
+
+        var undefinedFunction = formula.compile("foo(1)").value().program();
+        assertThrows(IllegalArgumentException.class, () -> formula.load(undefinedFunction));
+    }
+
+    @Test
+    void testLoadRequiresFormulaDefinitions() {
+        var program = formula.compile("x > 1 && y").value().program();
+        var numbers = Formula.builder().configure(OPERATIONS_NUMBER).build();
+        assertThrows(IllegalArgumentException.class, () -> numbers.load(program));
+
+        var plain = Formula.builder().configure(OPERATIONS_DEFAULT).optimize(false).build();
+        var loaded = formula.load(plain.compile("1 + 2 + price").value().program());
+        assertOK(loaded.evaluate(Map.of("price", 1)));
+        assertThrows(IllegalStateException.class, loaded::expression);
+
+        loaded = formula.load(plain.compile("1 + price").value().program());
+        assertEquals("1 + price", loaded.expression().toString());
+    }
+
+    @Test
+    void testLoadVerifiesProgram() throws ReflectiveOperationException {
+        for (var input : List.of("", "price", "-price * (quantity + 1)", "twice(price, twice(quantity)) > 0 && price || 'x'", "(a + b) * (a + b)"))
+            assertOK(formula.load(formula.compile(input).value().program()).evaluate(Map.of("price", 1, "quantity", 2, "a", 3, "b", 4)));
+
+        assertThrows(IllegalArgumentException.class, () -> formula.load(corrupt(code -> code[0] = 99)));
+        assertThrows(IllegalArgumentException.class, () -> formula.load(corrupt(code -> code[2] = 1000)));
+        assertThrows(IllegalArgumentException.class, () -> formula.load(corrupt(code -> code[5] = 0)));
+        assertThrows(IllegalArgumentException.class, () -> formula.load(corrupt(code -> code[code.length - 2] = 3)));
+
+        var program = formula.compile("price * quantity").value().program();
+        var maxStack = Program.class.getDeclaredField("maxStack");
+        maxStack.setAccessible(true);
+        maxStack.setInt(program, 1);
+        assertThrows(IllegalArgumentException.class, () -> formula.load(program));
+    }
+
+    Program corrupt(Consumer<int[]> corruption) throws ReflectiveOperationException {
+        var program = formula.compile("price * quantity").value().program();
+        var code = Program.class.getDeclaredField("code");
+        code.setAccessible(true);
+        corruption.accept((int[]) code.get(program));
+        return program;
+    }
+}
@@ -0,0 +1,97 @@
+package integration;
+
+import com.github.ducoral.formula.Formula;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_DEFAULT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Timeout(60)
+public class ConcurrentParseTest {
+
+    static final int THREADS = 16;
+
+    static final int ITERATIONS = 2_000;
+
+    static final List<String> INPUTS = List.of(
+            "a >= b && c <= d || e != f",
+            "a == b || a > b && -c < d",
+            "'x' + y >= 'z' || w == 1.5e3",
+            "(a + b) * (c - d) / 2 <= 10 && flag",
+            "f(a >= 1, b || c, 'd' != e) == g");
+
+    @Test
+    void testParseUnderContention() throws Exception {
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .build();
+
+        var expected = new ArrayList<String>();
+        for (var input : INPUTS)
+            expected.add(formula.parse(input).value().toString());
+
+        var barrier = new CyclicBarrier(THREADS);
+        var tasks = new ArrayList<Callable<Integer>>();
+        for (var thread = 0; thread < THREADS; thread++) {
+            var offset = thread;
+            tasks.add(() -> {
+                barrier.await();
+                var mismatches = 0;
+                for (var iteration = 0; iteration < ITERATIONS; iteration++) {
+                    var index = (offset + iteration) % INPUTS.size();
+                    var result = formula.parse(INPUTS.get(index));
+                    if (!result.isOK() || !expected.get(index).equals(result.value().toString()))
+                        mismatches++;
+                }
+                return mismatches;
+            });
+        }
+
+        var executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (var future : executor.invokeAll(tasks))
+                assertEquals(0, future.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testEvaluateUnderContention() throws Exception {
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .build();
+
+        var barrier = new CyclicBarrier(THREADS);
+        var tasks = new ArrayList<Callable<Integer>>();
+        for (var thread = 0; thread < THREADS; thread++) {
+            var value = thread;
+            tasks.add(() -> {
+                barrier.await();
+                var mismatches = 0;
+                for (var iteration = 0; iteration < ITERATIONS; iteration++) {
+                    var result = formula.evaluate("x >= 8 && x <= 15 || x == -1", Map.of("x", value));
+                    if (!result.isOK() || result.value().isTrue() != (value >= 8))
+                        mismatches++;
+                }
+                return mismatches;
+            });
+        }
+
+        var executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (var future : executor.invokeAll(tasks))
+                assertEquals(0, future.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package integration;
+
+import com.github.ducoral.formula.Engine;
+import com.github.ducoral.formula.Formula;
+import com.github.ducoral.formula.FunctionDefinition;
+import com.github.ducoral.formula.NumericMode;
+import com.github.ducoral.formula.Operation;
+import com.github.ducoral.formula.Result;
+import com.github.ducoral.formula.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_DEFAULT;
+import static com.github.ducoral.formula.FormulaDefaults.PLUS;
+import static integration.TestUtils.assertOK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EngineTest {
+
+    static final String[] INPUTS = {
+            "",
+            "1 + 2 * 3",
+            "-a + b / 2",
+            "price * quantity - discount",
+            "'total: ' + price * quantity",
+            "a > b || b > a && s == 'x'",
+            "n == 0 || 10 / n > 1",
+            "twice(a) + twice(twice(b))",
+            "count() + count(a, b) + count(a, b, c)",
+            "(a + b) * (a + b) - (a + b)",
+            "price * 1.5 > 10.0",
+            "x + 1",
+            "a + s",
+            "-s",
+            "a + undefined(1)",
+            "a && b",
+    };
+
+    final Map<String, Object> scope = new HashMap<>();
+
+    final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void beforeEach() {
+        Locale.setDefault(Locale.ENGLISH);
+
+        scope.put("a", 3);
+        scope.put("b", 7L);
+        scope.put("c", BigInteger.TEN);
+        scope.put("n", 0);
+        scope.put("s", "x");
+        scope.put("price", new BigDecimal("2.50"));
+        scope.put("quantity", 4);
+        scope.put("discount", 1);
+    }
+
+    Formula formula(Engine engine) {
+        return Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .function(FunctionDefinition.pure("twice", parameters -> {
+                    calls.incrementAndGet();
+                    return parameters.get(0).asBigInteger().shiftLeft(1);
+                }))
+                .function(new FunctionDefinition("count", parameters -> parameters.count()))
+                .engine(engine)
+                .build();
+    }
+
+    @Test
+    void testSameResults() {
+        var interpreter = formula(Engine.INTERPRETER);
+        for (var engine : Engine.values()) {
+            var formula = formula(engine);
+            for (var input : INPUTS) {
+                var expected = describe(interpreter.compile(input).value().evaluate(scope));
+                for (int round = 0; round < 3; round++)
+                    assertEquals(expected, describe(formula.compile(input).value().evaluate(scope)), engine + ": " + input);
+            }
+        }
+    }
+
+    @Test
+    void testVariables() {
+        for (var engine : Engine.values()) {
+            var compiled = formula(engine).compile("price * quantity + twice(quantity)").value();
+            var result = compiled.evaluate(new Object[]{new BigDecimal("1.25"), 2});
+            assertOK(result);
+            assertEquals(new BigDecimal("6.5000"), result.value().asObject(), engine.name());
+        }
+    }
+
+    @Test
+    void testShortCircuitAndCommonSubexpressions() {
+        for (var engine : Engine.values()) {
+            var compiled = formula(engine).compile("n != 0 && twice(a) > 0 || twice(a) + twice(a) > 0").value();
+            calls.set(0);
+            var result = compiled.evaluate(scope);
+            assertOK(result);
+            assertEquals(true, result.value().asObject(), engine.name());
+            assertEquals(1, calls.get(), engine.name());
+        }
+    }
+
+    @Test
+    void testLongSpecializationEdges() {
+        Object[][] rows = {
+                {3L, 7L}, {4L, -9L}, {(long) Integer.MAX_VALUE, 2L}, {Long.MAX_VALUE, 1L},
+                {-5, 6}, {Long.MIN_VALUE, -1L}, {12L, BigInteger.valueOf(5)}, {1L, 2.5}, {8L, 8L},
+        };
+        var interpreter = formula(Engine.INTERPRETER);
+        for (var engine : Engine.values()) {
+            for (var input : List.of("a * b - -a + (a - b)", "a <= b", "a == b", "-a * -b")) {
+                var expected = interpreter.compile(input).value();
+                var compiled = formula(engine).compile(input).value();
+                for (int round = 0; round < 3; round++)
+                    for (var row : rows)
+                        assertEquals(
+                                describe(expected.evaluate(row)),
+                                describe(compiled.evaluate(row)),
+                                engine + ": " + input + " " + List.of(row));
+            }
+        }
+    }
+
+    @Test
+    void testLargeFormula() {
+        var input = new StringBuilder("a");
+        for (int index = 0; index < 300; index++)
+            input.append(index % 3 == 0 ? " + (b * a - " + index + ")" : " + a * " + index);
+
+        var expected = describe(formula(Engine.INTERPRETER).compile(input.toString()).value().evaluate(scope));
+        for (var engine : Engine.values())
+            assertEquals(expected, describe(formula(engine).compile(input.toString()).value().evaluate(scope)), engine.name());
+    }
+
+    @Test
+    void testCodeTooLargeFallsBackToClosure() {
+        var input = new StringBuilder("count(a");
+        for (int index = 1; index < 7000; index++)
+            input.append(", a");
+        input.append(")");
+
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .engine(Engine.BYTECODE)
+                .function(new FunctionDefinition("count", parameters -> parameters.count()))
+                .build();
+        var compiled = formula.compile(input.toString()).value();
+        assertEquals(Engine.CLOSURE, compiled.engine());
+        assertEquals(1, formula.failedPromotionCount());
+        assertEquals(7000, compiled.evaluate(scope).value().asBigInteger().intValue());
+    }
+
+    @Test
+    void testRejectedPromotion() {
+        var accept = new AtomicInteger();
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .tiered(Engine.CLOSURE, 2)
+                .tieredExecutor(runnable -> {
+                    if (accept.get() == 0)
+                        throw new RejectedExecutionException();
+                    runnable.run();
+                })
+                .build();
+
+        var compiled = formula.compile("price * quantity - discount").value();
+        var expected = describe(formula(Engine.INTERPRETER).compile("price * quantity - discount").value().evaluate(scope));
+        for (int round = 0; round < 4; round++)
+            assertEquals(expected, describe(compiled.evaluate(scope)));
+        assertEquals(Engine.INTERPRETER, compiled.engine());
+        assertEquals(2, formula.failedPromotionCount());
+        assertEquals(0, formula.promotedCount());
+
+        accept.set(1);
+        compiled.evaluate(scope);
+        assertEquals(expected, describe(compiled.evaluate(scope)));
+        assertEquals(Engine.CLOSURE, compiled.engine());
+        assertEquals(1, formula.promotedCount());
+        assertEquals(2, formula.failedPromotionCount());
+    }
+
+    @Test
+    void testTieredPromotion() {
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .engine(Engine.CLOSURE)
+                .tiered(Engine.BYTECODE, 3)
+                .tieredExecutor(Runnable::run)
+                .build();
+
+        var hot = formula.compile("price * quantity - discount").value();
+        var cold = formula.compile("a + b").value();
+        assertEquals(Engine.INTERPRETER, hot.engine());
+
+        var expected = describe(hot.evaluate(scope));
+        hot.evaluate(scope);
+        cold.evaluate(scope);
+        assertEquals(Engine.INTERPRETER, hot.engine());
+        assertEquals(0, formula.promotedCount());
+
+        assertEquals(expected, describe(hot.evaluate(scope)));
+        assertEquals(Engine.BYTECODE, hot.engine());
+        assertEquals(Engine.INTERPRETER, cold.engine());
+        assertEquals(1, formula.promotedCount());
+
+        for (int round = 0; round < 5; round++)
+            assertEquals(expected, describe(hot.evaluate(scope)));
+        assertEquals(1, formula.promotedCount());
+
+        assertEquals(Engine.CLOSURE, formula(Engine.CLOSURE).compile("a").value().engine());
+        assertThrows(IllegalArgumentException.class, () -> Formula.builder().tiered(Engine.INTERPRETER, 1));
+        assertThrows(IllegalArgumentException.class, () -> Formula.builder().tiered(Engine.BYTECODE, 0));
+    }
+
+    @Test
+    void testTypeSpecializationGuards() {
+        var input = "a * b + c - -a > d || a / b == e";
+        var samples = new Object[][]{
+                {3L, 7L, 2, 10, 0L},
+                {4L, 2L, 5, 100, 2L},
+                {Long.MAX_VALUE, 2L, 1, 0, 1L},
+                {-Long.MAX_VALUE - 1, -1L, 0, 0, 0},
+                {new BigDecimal("1.5"), 2L, 1, 1, 1},
+                {"x", 2L, 1, 1, 1},
+                {3L, 0L, 1, 100, 1},
+                {3, (short) 7, BigInteger.TEN.pow(30), 10, 1},
+                {3L, 7L, 2, 10, 0L},
+        };
+
+        for (var mode : NumericMode.values()) {
+            var interpreter = formula(Engine.INTERPRETER, mode).compile(input).value();
+            for (var engine : Engine.values()) {
+                var compiled = formula(engine, mode).compile(input).value();
+                for (int round = 0; round < 2; round++)
+                    for (var sample : samples) {
+                        var expected = describeOrThrown(() -> interpreter.evaluate(sample));
+                        assertEquals(expected, describeOrThrown(() -> compiled.evaluate(sample)), engine + " " + mode + " " + List.of(sample));
+                    }
+            }
+        }
+
+        var overridden = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .binaryOperation(new Operation(Long.class, PLUS, (operands, chainer) -> "long"))
+                .engine(Engine.CLOSURE)
+                .build()
+                .compile("a + b")
+                .value();
+        assertEquals("long", overridden.evaluate(new Object[]{1L, 2L}).value().asObject());
+        assertEquals(BigInteger.valueOf(3), overridden.evaluate(new Object[]{1, 2L}).value().asObject());
+    }
+
+    Formula formula(Engine engine, NumericMode mode) {
+        return Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .numericMode(mode)
+                .engine(engine)
+                .build();
+    }
+
+    static String describeOrThrown(Supplier<Result<Value>> evaluation) {
+        try {
+            return describe(evaluation.get());
+        } catch (RuntimeException exception) {
+            return exception.getClass().getName();
+        }
+    }
+
+    static String describe(Result<Value> result) {
+        if (!result.isOK())
+            return result.exception().type + " " + result.exception().position + "\n" + result.formattedErrorMessage();
+        var value = result.value().asObject();
+        return value == null ? "null" : value.getClass().getName() + ":" + value;
+    }
+}
@@ -438,6 +438,47 @@ class EvaluatorTest {
         Assertions.assertThrowsExactly(IndexOutOfBoundsException.class, () -> formula.evaluate("invalid()"));
     }
 
+    @Test
+    void testEvaluateFunctionParameters() {
+        var calls = new AtomicInteger();
+        var formula = Formula.builder()
+                .function(new FunctionDefinition("next", parameters -> calls.incrementAndGet()))
+                .function(new FunctionDefinition("twice", parameters ->
+                        parameters.get(0).asString() + parameters.asList().get(0).asString()))
+                .function(new FunctionDefinition("primitives", parameters ->
+                        parameters.getLong(0) + ":" + parameters.getDouble(1) + ":" + parameters.getBoolean(2)))
+                .build();
+
+        var result = formula.evaluate("twice(next())");
+        assertOK(result);
+        assertEquals("11", result.value().asString());
+        assertEquals(1, calls.get());
+
+        result = formula.evaluate("primitives(a, b, c)", Map.of("a", 7, "b", 1.5f, "c", true));
+        assertOK(result);
+        assertEquals("7:1.5:true", result.value().asString());
+
+        result = formula.evaluate("primitives(123, 1.25, 0)");
+        assertOK(result);
+        assertEquals("123:1.25:false", result.value().asString());
+
+        result = formula.evaluate("primitives('9', '0.5', 'x')");
+        assertOK(result);
+        assertEquals("9:0.5:true", result.value().asString());
+
+        result = formula.evaluate("primitives(a, 1, 1)", Map.of("a", 2.5));
+        assertOK(result);
+        assertEquals("2:1.0:true", result.value().asString());
+
+        result = formula.evaluate("primitives(a, '2.5', 1)", Map.of("a", new BigDecimal("-7.9")));
+        assertOK(result);
+        assertEquals("-7:2.5:true", result.value().asString());
+
+        result = formula.evaluate("primitives('3.75', 1, 1)");
+        assertOK(result);
+        assertEquals("3:1.0:true", result.value().asString());
+    }
+
     @Nested
     class ExceptionTest {
 
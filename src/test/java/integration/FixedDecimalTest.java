@@ -0,0 +1,96 @@
+package integration;
+
+import com.github.ducoral.formula.FixedDecimal;
+import com.github.ducoral.formula.Formula;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_DEFAULT;
+import static integration.TestUtils.assertOK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FixedDecimalTest {
+
+    final Formula formula = Formula.builder()
+            .configure(OPERATIONS_DEFAULT)
+            .build();
+
+    @Test
+    void testFixedDecimal() {
+        var amount = FixedDecimal.of(12345, 2);
+        assertEquals(12345, amount.unscaledValue());
+        assertEquals(2, amount.scale());
+        assertEquals("123.45", amount.toString());
+        assertEquals(new BigDecimal("123.45"), amount.toBigDecimal());
+        assertEquals(123.45, amount.doubleValue());
+        assertEquals(123, amount.longValue());
+        assertEquals(amount, FixedDecimal.valueOf("123.45"));
+        assertEquals(FixedDecimal.of(100, 0), FixedDecimal.valueOf(new BigDecimal("1E+2")));
+        assertThrows(IllegalArgumentException.class, () -> FixedDecimal.of(1, -1));
+        assertThrows(ArithmeticException.class, () -> FixedDecimal.valueOf("92233720368547758.08"));
+    }
+
+    @Test
+    void testArithmetic() {
+        var scope = Map.<String, Object>of(
+                "price", FixedDecimal.valueOf("19.90"),
+                "rate", FixedDecimal.valueOf("0.0125"),
+                "quantity", 3);
+
+        var result = formula.evaluate("price * quantity", scope);
+        assertOK(result);
+        assertEquals(FixedDecimal.valueOf("59.7000"), result.value().asObject());
+
+        result = formula.evaluate("price + rate", scope);
+        assertOK(result);
+        assertEquals(FixedDecimal.valueOf("19.9125"), result.value().asObject());
+
+        result = formula.evaluate("price - quantity", scope);
+        assertOK(result);
+        assertEquals(FixedDecimal.valueOf("16.90"), result.value().asObject());
+
+        result = formula.evaluate("price * rate", scope);
+        assertOK(result);
+        assertEquals(FixedDecimal.valueOf("0.24875000"), result.value().asObject());
+        assertEquals(new BigDecimal("19.90").setScale(4).multiply(new BigDecimal("0.0125")), result.value().asBigDecimal());
+
+        result = formula.evaluate("-price", scope);
+        assertOK(result);
+        assertEquals(FixedDecimal.valueOf("-19.90"), result.value().asObject());
+
+        result = formula.evaluate("price / quantity", scope);
+        assertOK(result);
+        assertEquals(new BigDecimal("6.63"), result.value().asObject());
+
+        result = formula.evaluate("price + 0.1", scope);
+        assertOK(result);
+        assertEquals(new BigDecimal("20.00"), result.value().asObject());
+
+        result = formula.evaluate("price > quantity && price <= 19.9", scope);
+        assertOK(result);
+        assertTrue(result.value().isTrue());
+    }
+
+    @Test
+    void testOverflow() {
+        var scope = Map.<String, Object>of(
+                "max", FixedDecimal.of(Long.MAX_VALUE, 2),
+                "cent", FixedDecimal.of(1, 2));
+
+        var result = formula.evaluate("max + cent", scope);
+        assertOK(result);
+        assertEquals(new BigDecimal("92233720368547758.08"), result.value().asObject());
+
+        result = formula.evaluate("max * 2", scope);
+        assertOK(result);
+        assertEquals(new BigDecimal("184467440737095516.1400"), result.value().asObject());
+
+        result = formula.evaluate("max > cent", scope);
+        assertOK(result);
+        assertTrue(result.value().isTrue());
+    }
+}
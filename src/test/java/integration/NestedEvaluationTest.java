@@ -0,0 +1,66 @@
+package integration;
+
+import com.github.ducoral.formula.Formula;
+import com.github.ducoral.formula.FunctionDefinition;
+import com.github.ducoral.formula.Scope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_DEFAULT;
+import static integration.TestUtils.assertOK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Timeout(10)
+public class NestedEvaluationTest {
+
+    final AtomicInteger calls = new AtomicInteger();
+
+    Formula formula;
+
+    @BeforeEach
+    void beforeEach() {
+        formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .function(new FunctionDefinition("one", parameters -> {
+                    calls.incrementAndGet();
+                    return BigInteger.ONE;
+                }))
+                .build();
+    }
+
+    @Test
+    void testRightOperandIsEvaluatedOnce() {
+        var result = formula.evaluate(nested("1", "+", "one()", 30));
+        assertOK(result);
+        assertEquals(BigInteger.valueOf(31), result.value().asBigInteger());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testEvaluationsGrowLinearlyWithDepth() {
+        var lookups = new AtomicInteger();
+        Scope scope = name -> {
+            lookups.incrementAndGet();
+            return 2;
+        };
+
+        for (var depth = 1; depth <= 40; depth++) {
+            lookups.set(0);
+            var compiled = formula.compile(nested("x", "*", "x", depth)).value();
+            var result = compiled.evaluate(scope);
+            assertOK(result);
+            assertEquals(depth + 1, lookups.get());
+        }
+    }
+
+    private static String nested(String operand, String operator, String innermost, int depth) {
+        var expression = innermost;
+        for (var level = 0; level < depth; level++)
+            expression = operand + " " + operator + " (" + expression + ")";
+        return expression;
+    }
+}
@@ -2,12 +2,18 @@ package integration;
 
 import com.github.ducoral.formula.Formula;
 import com.github.ducoral.formula.FormulaDefaults;
+import com.github.ducoral.formula.FunctionDefinition;
+import com.github.ducoral.formula.Operation;
+import com.github.ducoral.formula.Operator;
+import com.github.ducoral.formula.Precedence;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static integration.TestUtils.assertOK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -63,4 +69,68 @@ public class OperationsLogicalTest {
         assertOK(result);
         assertFalse(result.value().isTrue());
     }
+
+    @Test
+    void testShortCircuit() {
+        var calls = new AtomicInteger();
+        formula = Formula.builder()
+                .configure(FormulaDefaults.OPERATIONS_LOGICAL)
+                .function(new FunctionDefinition("lookup", parameters -> calls.incrementAndGet() > 0))
+                .build();
+
+        var result = formula.evaluate("false && lookup()", variables);
+        assertOK(result);
+        assertFalse(result.value().isTrue());
+        assertEquals(0, calls.get());
+
+        result = formula.evaluate("true || lookup()", variables);
+        assertOK(result);
+        assertTrue(result.value().isTrue());
+        assertEquals(0, calls.get());
+
+        result = formula.evaluate("true && lookup()", variables);
+        assertOK(result);
+        assertTrue(result.value().isTrue());
+        assertEquals(1, calls.get());
+
+        result = formula.evaluate("false || lookup()", variables);
+        assertOK(result);
+        assertTrue(result.value().isTrue());
+        assertEquals(2, calls.get());
+
+        result = formula.evaluate("false && undefined()", variables);
+        assertOK(result);
+        assertFalse(result.value().isTrue());
+    }
+
+    @Test
+    void testLazyOperation() {
+        var calls = new AtomicInteger();
+        var orElse = new Operator("?:", new Precedence(0));
+        formula = Formula.builder()
+                .binaryOperation(new Operation(Object.class, orElse, (operands, chain) ->
+                        operands.left().isTruthful() ? operands.left().asObject() : operands.right().asObject()))
+                .function(new FunctionDefinition("fallback", parameters -> "fallback" + calls.incrementAndGet()))
+                .build();
+
+        var result = formula.evaluate("'value' ?: fallback()");
+        assertOK(result);
+        assertEquals("value", result.value().asString());
+        assertEquals(0, calls.get());
+
+        result = formula.evaluate("'' ?: fallback()");
+        assertOK(result);
+        assertEquals("fallback1", result.value().asString());
+
+        var both = new Operator("&", new Precedence(0));
+        formula = Formula.builder()
+                .binaryOperation(Operation.eager(Object.class, both, (operands, chain) -> operands.left().asObject()))
+                .function(new FunctionDefinition("fallback", parameters -> "fallback" + calls.incrementAndGet()))
+                .build();
+
+        result = formula.evaluate("'value' & fallback()");
+        assertOK(result);
+        assertEquals("value", result.value().asString());
+        assertEquals(2, calls.get());
+    }
 }
@@ -1,12 +1,16 @@
 package integration;
 
+import com.github.ducoral.formula.Engine;
 import com.github.ducoral.formula.Formula;
+import com.github.ducoral.formula.NumericMode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.MathContext;
 import java.math.RoundingMode;
+import java.util.List;
 import java.util.Map;
 
 import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_NUMBER;
@@ -265,6 +269,121 @@ public class OperationsNumberTest {
         assertTrue(result.value().isTrue());
     }
 
+    @Test
+    void testLongOverflow() {
+        var formula = builder.build();
+        var scope = Map.<String, Object>of("max", Long.MAX_VALUE, "min", Long.MIN_VALUE, "one", 1);
+
+        var result = formula.evaluate("max + one", scope);
+        assertOK(result);
+        assertEquals(bigInteger("9223372036854775808"), result.value().asObject());
+
+        result = formula.evaluate("min - one", scope);
+        assertOK(result);
+        assertEquals(bigInteger("-9223372036854775809"), result.value().asObject());
+
+        result = formula.evaluate("max * 2", scope);
+        assertOK(result);
+        assertEquals(bigInteger("18446744073709551614"), result.value().asObject());
+
+        result = formula.evaluate("min / -1", scope);
+        assertOK(result);
+        assertEquals(bigInteger("9223372036854775808"), result.value().asObject());
+
+        result = formula.evaluate("-min", scope);
+        assertOK(result);
+        assertEquals(bigInteger("9223372036854775808"), result.value().asObject());
+
+        result = formula.evaluate("max - one", scope);
+        assertOK(result);
+        assertEquals(bigInteger("9223372036854775806"), result.value().asObject());
+
+        result = formula.evaluate("max + one > max", scope);
+        assertOK(result);
+        assertTrue(result.value().isTrue());
+    }
+
+    @Test
+    void testDoubleMode() {
+        var formula = builder
+                .numericMode(NumericMode.DOUBLE)
+                .build();
+
+        var result = formula.evaluate("11 / 2");
+        assertOK(result);
+        assertEquals(5.5, result.value().asObject());
+
+        result = formula.evaluate("0.1 + 0.2");
+        assertOK(result);
+        assertEquals(0.1 + 0.2, result.value().asObject());
+
+        result = formula.evaluate("-x * 2", Map.of("x", new BigDecimal("1.25")));
+        assertOK(result);
+        assertEquals(-2.5, result.value().asObject());
+
+        result = formula.evaluate("1 / 0");
+        assertOK(result);
+        assertEquals(Double.POSITIVE_INFINITY, result.value().asObject());
+
+        result = formula.evaluate("0.0 == -0.0");
+        assertOK(result);
+        assertTrue(result.value().isTrue());
+
+        for (var engine : Engine.values()) {
+            var nan = Map.<String, Object>of("nan", Double.NaN, "one", 1.0);
+            var doubles = builder.engine(engine).build();
+            for (var input : List.of("nan == nan", "nan < one", "nan <= one", "nan > one", "nan >= one", "one == nan"))
+                assertFalse(doubles.compile(input).value().evaluate(nan).value().isTrue(), engine + ": " + input);
+            assertTrue(doubles.compile("nan != nan").value().evaluate(nan).value().isTrue(), engine.name());
+        }
+    }
+
+    @Test
+    void testModeIsFixedWhenBuilt() {
+        var exact = builder.build();
+        var doubles = builder.numericMode(NumericMode.DOUBLE).build();
+        var decimal64 = builder.numericMode(NumericMode.DECIMAL64).mathContext(new MathContext(3)).build();
+
+        assertEquals(BigInteger.valueOf(3), exact.evaluate("1 + 2").value().asObject());
+        assertEquals(new BigDecimal("2.50"), exact.evaluate("10.00 / 4").value().asObject());
+        assertEquals(3.0, doubles.evaluate("1 + 2").value().asObject());
+        assertEquals(2.5, doubles.evaluate("10 / 4").value().asObject());
+        assertEquals(new BigDecimal("0.333"), decimal64.evaluate("1.0 / 3").value().asObject());
+
+        for (var engine : Engine.values()) {
+            var reused = Formula.builder().configure(OPERATIONS_NUMBER).engine(engine);
+            var compiled = reused.build().compile("a / b").value();
+            reused.numericMode(NumericMode.DOUBLE).build();
+            assertEquals(BigInteger.valueOf(2), compiled.evaluate(Map.of("a", 10, "b", 4)).value().asObject(), engine.name());
+        }
+    }
+
+    @Test
+    void testDecimal64Mode() {
+        var formula = builder
+                .numericMode(NumericMode.DECIMAL64)
+                .build();
+
+        var result = formula.evaluate("1.0 / 3");
+        assertOK(result);
+        assertEquals(new BigDecimal("0.3333333333333333"), result.value().asObject());
+
+        result = formula.evaluate("1.5 * 1.5");
+        assertOK(result);
+        assertEquals(new BigDecimal("2.25"), result.value().asObject());
+
+        result = formula.evaluate("11 / 2");
+        assertOK(result);
+        assertEquals(bigInteger("5"), result.value().asObject());
+
+        result = builder
+                .mathContext(new MathContext(3, RoundingMode.DOWN))
+                .build()
+                .evaluate("2.0 / 3");
+        assertOK(result);
+        assertEquals(new BigDecimal("0.666"), result.value().asObject());
+    }
+
     @Test
     void testOperationNotSupported() {
         var result = builder.build().evaluate("-`a`");
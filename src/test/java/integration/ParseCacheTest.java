@@ -0,0 +1,125 @@
+package integration;
+
+import com.github.ducoral.formula.Formula;
+import com.github.ducoral.formula.ParseCacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_DEFAULT;
+import static integration.TestUtils.assertOK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParseCacheTest {
+
+    @Test
+    void testDisabledByDefault() {
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .build();
+
+        assertOK(formula.evaluate("1 + 2"));
+        assertOK(formula.evaluate("1 + 2"));
+        assertEquals(ParseCacheStats.DISABLED, formula.parseCacheStats());
+        assertThrows(IllegalArgumentException.class, () -> Formula.builder().parseCache(-1));
+    }
+
+    @Test
+    void testHitsAndMisses() {
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .parseCache(10)
+                .build();
+
+        var first = formula.parse("1 + 2");
+        var second = formula.parse("1 + 2");
+        assertOK(first);
+        assertSame(first, second);
+
+        var result = formula.evaluate("1 + 2");
+        assertOK(result);
+        assertEquals(BigInteger.valueOf(3), result.value().asBigInteger());
+
+        var stats = formula.parseCacheStats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0, stats.evictions());
+        assertEquals(1, stats.size());
+        assertEquals(3, stats.requests());
+    }
+
+    @Test
+    void testInvalidInputIsCached() {
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .parseCache(10)
+                .build();
+
+        var first = formula.parse("1 + (2");
+        var second = formula.parse("1 + (2");
+        assertFalse(first.isOK());
+        assertSame(first, second);
+        assertEquals(1, formula.parseCacheStats().hits());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .parseCache(1)
+                .build();
+
+        var first = formula.parse("a");
+        formula.parse("b");
+        assertTrue(first != formula.parse("a"));
+
+        var stats = formula.parseCacheStats();
+        assertEquals(0, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals(2, stats.evictions());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        var formula = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .parseCache(1024)
+                .build();
+
+        for (var index = 0; index < 100; index++)
+            assertOK(formula.parse("x + " + index));
+
+        var tasks = new ArrayList<Callable<Boolean>>();
+        for (var task = 0; task < 8; task++)
+            tasks.add(() -> {
+                for (var index = 0; index < 1000; index++) {
+                    var result = formula.evaluate("x + " + (index % 100), Map.of("x", 1));
+                    if (!result.isOK() || result.value().asBigInteger().intValue() != 1 + index % 100)
+                        return false;
+                }
+                return true;
+            });
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            for (var future : executor.invokeAll(tasks))
+                assertTrue(future.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        var stats = formula.parseCacheStats();
+        assertEquals(8000, stats.hits());
+        assertEquals(100, stats.misses());
+        assertEquals(100, stats.size());
+    }
+}
@@ -174,6 +174,31 @@ class ParseTest {
             fail("BinaryOperation expected");
     }
 
+    @Test
+    void testManyPrecedenceLevels() {
+        var builder = Formula.builder();
+        for (var order = 0; order < 50; order++)
+            builder.binaryOperation(new Operation(Number.class, new Operator("op" + order, new Precedence(order)), (operands, chain) -> null));
+        var formula = builder.build();
+
+        assertEquals("(1 op0 2) op49 3", assertParse(formula, "1 op0 2 op49 3").value().toString());
+        assertEquals("1 op49 (2 op0 3)", assertParse(formula, "1 op49 2 op0 3").value().toString());
+        assertEquals("((1 op7 2) op7 3) op8 (4 op3 5)", assertParse(formula, "1 op7 2 op7 3 op8 4 op3 5").value().toString());
+        assertEquals("1", assertParse(formula, "1").value().toString());
+    }
+
+    @Test
+    void testOperatorWithManyPrecedences() {
+        var formula = Formula.builder()
+                .binaryOperation(new Operation(Number.class, new Operator("op", new Precedence(0)), (operands, chain) -> null))
+                .binaryOperation(new Operation(String.class, new Operator("op", new Precedence(2)), (operands, chain) -> null))
+                .binaryOperation(new Operation(Number.class, new Operator("+", new Precedence(1)), (operands, chain) -> null))
+                .build();
+
+        assertEquals("1 + (2 op 3)", assertParse(formula, "1 + 2 op 3").value().toString());
+        assertEquals("(1 op 2) + 3", assertParse(formula, "1 op 2 + 3").value().toString());
+    }
+
     void assertNumberLiteral(Expression expression, int position, Object value) {
         if (expression instanceof NumberLiteral number) {
             assertEquals(pos(position), number.position());
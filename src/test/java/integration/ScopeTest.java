@@ -0,0 +1,117 @@
+package integration;
+
+import com.github.ducoral.formula.Engine;
+import com.github.ducoral.formula.Formula;
+import com.github.ducoral.formula.Scope;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+
+import static com.github.ducoral.formula.FormulaDefaults.OPERATIONS_DEFAULT;
+import static integration.TestUtils.assertOK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScopeTest {
+
+    final Formula formula = Formula.builder()
+            .configure(OPERATIONS_DEFAULT)
+            .build();
+
+    @Test
+    void testCustomScope() {
+        long[] row = {7, 5};
+        Scope scope = name -> switch (name) {
+            case "hits" -> row[0];
+            case "misses" -> row[1];
+            default -> null;
+        };
+
+        var result = formula.evaluate("hits + misses", scope);
+        assertOK(result);
+        assertEquals(BigInteger.valueOf(12), result.value().asObject());
+
+        assertTrue(scope.contains("hits"));
+        assertFalse(scope.contains("other"));
+        assertEquals(7, scope.getLong("hits"));
+        assertEquals(5.0, scope.getDouble("misses"));
+        assertTrue(scope.getBoolean("hits"));
+    }
+
+    @Test
+    void testLongScope() {
+        var compiled = Formula.builder()
+                .configure(OPERATIONS_DEFAULT)
+                .engine(Engine.CLOSURE)
+                .build()
+                .compile("hits * misses - -hits")
+                .value();
+        long[] row = {7, 5};
+        int[] boxedReads = {0};
+        var scope = new Scope() {
+            @Override
+            public Object get(String name) {
+                boxedReads[0]++;
+                return getLong(name);
+            }
+
+            @Override
+            public boolean hasLong(String name) {
+                return true;
+            }
+
+            @Override
+            public long getLong(String name) {
+                return name.equals("hits") ? row[0] : row[1];
+            }
+        };
+
+        assertEquals(BigInteger.valueOf(42), compiled.evaluate(scope).value().asObject());
+        var reads = boxedReads[0];
+        row[0] = 8;
+        assertEquals(BigInteger.valueOf(48), compiled.evaluate(scope).value().asObject());
+        assertEquals(reads, boxedReads[0]);
+    }
+
+    @Test
+    void testPrimitiveAccessors() {
+        var map = new HashMap<String, Object>();
+        map.put("big", new BigInteger("123"));
+        map.put("huge", new BigInteger("92233720368547758070"));
+        map.put("text", "1.5");
+        map.put("decimal", new BigDecimal("2.5"));
+        map.put("negative", -7.9);
+        map.put("flag", false);
+        map.put("nothing", null);
+        var scope = Scope.of(map);
+
+        assertEquals(123, scope.getLong("big"));
+        assertEquals(2, scope.getLong("decimal"));
+        assertEquals(-7, scope.getLong("negative"));
+        assertEquals(1, scope.getLong("text"));
+        assertThrows(ArithmeticException.class, () -> scope.getLong("huge"));
+        assertEquals(1.5, scope.getDouble("text"));
+        assertFalse(scope.getBoolean("flag"));
+        assertFalse(scope.getBoolean("nothing"));
+        assertTrue(scope.contains("nothing"));
+        assertFalse(scope.contains("other"));
+    }
+
+    @Test
+    void testBindingsAsScope() {
+        var compiled = formula.compile("a * b").value();
+        var bindings = compiled.bindings()
+                .set("a", 6)
+                .set("b", 7);
+
+        assertTrue(bindings.contains("a"));
+        assertFalse(bindings.contains("c"));
+        assertEquals(42, formula.evaluate("a * b", bindings).value().asBigInteger().intValue());
+        assertEquals(6, bindings.getLong("a"));
+        assertEquals(7, bindings.set("b", new BigDecimal("7.9")).getLong("b"));
+    }
+}